@@ -2,11 +2,13 @@ package com.example.wishlist;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Главный класс приложения WishList
  */
 @SpringBootApplication
+@EnableScheduling
 public class WishListApplication {
     public static void main(String[] args) {
         SpringApplication.run(WishListApplication.class, args);
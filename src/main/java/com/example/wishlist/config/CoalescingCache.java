@@ -0,0 +1,96 @@
+package com.example.wishlist.config;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Кэш в памяти процесса, в котором параллельные промахи по одному ключу ждут одну загрузку.
+ * Загрузка выполняется в вызывающем потоке вне блокировки кэша: вычисление внутри блокировки
+ * (Cache.get с функцией) закрепляло бы виртуальный поток за несущим на все время запроса к базе.
+ * @param <K> тип ключа
+ * @param <V> тип значения
+ */
+public class CoalescingCache<K, V> {
+
+    private final AsyncCache<K, V> cache;
+
+    /**
+     * @param cache кэш Caffeine; метрики и ограничения настраиваются при его создании
+     */
+    public CoalescingCache(AsyncCache<K, V> cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Значение из кэша или результат загрузки. Ошибка загрузки не кэшируется: ожидающие
+     * запросы получают ту же ошибку, следующие загружают заново.
+     * @param key ключ
+     * @param loader загрузка значения, выполняется в вызывающем потоке
+     * @return значение
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        // getIfPresent учитывается в статистике попаданий, операции asMap() - нет
+        CompletableFuture<V> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return join(cached);
+        }
+        CompletableFuture<V> loading = new CompletableFuture<>();
+        CompletableFuture<V> existing = cache.asMap().putIfAbsent(key, loading);
+        if (existing != null) {
+            return join(existing);
+        }
+        try {
+            loading.complete(loader.apply(key));
+        } catch (RuntimeException | Error ex) {
+            loading.completeExceptionally(ex);
+            throw ex;
+        }
+        return loading.join();
+    }
+
+    /**
+     * Значение из кэша без загрузки
+     * @param key ключ
+     * @return загруженное значение или null, если его нет в кэше или оно еще загружается
+     */
+    public V getIfPresent(K key) {
+        CompletableFuture<V> cached = cache.getIfPresent(key);
+        if (cached == null || !cached.isDone() || cached.isCompletedExceptionally()) {
+            return null;
+        }
+        return cached.join();
+    }
+
+    /**
+     * Удаление значения из кэша. Внутри транзакции запись удаляется повторно после коммита:
+     * загрузка, начатая до коммита, не оставит в кэше устаревших данных.
+     * @param key ключ
+     */
+    public void evict(K key) {
+        cache.synchronous().invalidate(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.synchronous().invalidate(key);
+                }
+            });
+        }
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.wishlist.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Конфигурация метрик. Запросы к контроллерам, пулы соединений и статистика Hibernate
+ * снимаются автоконфигурацией Actuator, здесь включаются таймеры методов сервисов.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Обработка {@code @Timed} на сервисах: таймер wishlist.service с тегами класса и метода
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+}
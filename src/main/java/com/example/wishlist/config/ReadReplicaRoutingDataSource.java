@@ -0,0 +1,93 @@
+package com.example.wishlist.config;
+
+import jakarta.persistence.CacheStoreMode;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.lang.Nullable;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Источник данных, направляющий транзакции только для чтения на реплику, а остальные на основную базу.
+ * Должен использоваться за {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}:
+ * признак readOnly становится известен только после начала транзакции.
+ * <p>
+ * Кэши, общие для всех пользователей, заполняются только данными основной базы: реплика может
+ * отставать, и устаревшие данные остались бы в кэше после того, как она догонит основную базу.
+ * Транзакция, ушедшая на реплику, не записывает сущности и результаты запросов в кэш второго
+ * уровня Hibernate, а загрузки в кэши приложения выполняются через {@link #onPrimary(Supplier)}.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private final boolean replicaConfigured;
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    /**
+     * @param primary основная база
+     * @param replica реплика или null, если она не настроена и все запросы идут на основную базу
+     * @param readYourWritesTracker учет пользователей, недавно выполнивших запись
+     */
+    public ReadReplicaRoutingDataSource(DataSource primary, @Nullable DataSource replica,
+                                        ReadYourWritesTracker readYourWritesTracker) {
+        this.replicaConfigured = replica != null;
+        this.readYourWritesTracker = readYourWritesTracker;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replicaConfigured ? replica : primary));
+        setDefaultTargetDataSource(primary);
+    }
+
+    /**
+     * Выполнение действия с чтением только с основной базы, в том числе в транзакциях только
+     * для чтения. Используется загрузками, результат которых кэшируется для всех пользователей.
+     * Транзакция должна начинаться внутри действия: маршрут выбирается при первом запросе.
+     * @param action действие
+     * @return результат действия
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        Boolean previous = PRIMARY_REQUIRED.get();
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_REQUIRED.remove();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (!replicaConfigured || PRIMARY_REQUIRED.get() != null || readYourWritesTracker.hasRecentWrite()) {
+                return Route.PRIMARY;
+            }
+            bypassSharedCaches();
+            return Route.REPLICA;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            readYourWritesTracker.recordWrite();
+        }
+        return Route.PRIMARY;
+    }
+
+    /**
+     * Отключение записи в кэш второго уровня и кэш запросов для сессии текущей транзакции.
+     * Чтение из этих кэшей остается: их содержимое получено с основной базы.
+     */
+    private static void bypassSharedCaches() {
+        for (Object resource : TransactionSynchronizationManager.getResourceMap().values()) {
+            if (resource instanceof EntityManagerHolder holder) {
+                holder.getEntityManager().setProperty(SpecHints.HINT_SPEC_CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.wishlist.config;
+
+import com.example.wishlist.security.AuthenticatedUser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Учет пользователей, недавно выполнивших запись. В течение окна, покрывающего отставание
+ * реплики, их читающие транзакции направляются на основную базу, чтобы они видели свои изменения.
+ */
+public class ReadYourWritesTracker {
+
+    private final Cache<UUID, Boolean> recentWriters;
+
+    /**
+     * @param window время после коммита, в течение которого чтение идет с основной базы
+     * @param maxSize максимальное число отслеживаемых пользователей
+     */
+    public ReadYourWritesTracker(Duration window, long maxSize) {
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    /**
+     * Отметка о записи текущим пользователем. Окно отсчитывается от коммита транзакции.
+     */
+    public void recordWrite() {
+        UUID userId = currentUserId();
+        if (userId == null) {
+            return;
+        }
+        recentWriters.put(userId, Boolean.TRUE);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recentWriters.put(userId, Boolean.TRUE);
+                }
+            });
+        }
+    }
+
+    /**
+     * Проверка, должен ли текущий пользователь читать с основной базы
+     * @return true, если пользователь выполнял запись в пределах окна
+     */
+    public boolean hasRecentWrite() {
+        UUID userId = currentUserId();
+        return userId != null && recentWriters.getIfPresent(userId) != null;
+    }
+
+    private static UUID currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return user.getId();
+        }
+        return null;
+    }
+}
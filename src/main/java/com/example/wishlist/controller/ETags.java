@@ -0,0 +1,92 @@
+package com.example.wishlist.controller;
+
+import com.example.wishlist.exception.PreconditionFailedException;
+
+/**
+ * Построение и разбор сильных ETag, основанных на версиях сущностей
+ */
+final class ETags {
+
+    private static final String ANY = "*";
+    private static final String WEAK_PREFIX = "W/";
+    private static final String GZIP_SUFFIX = "-gzip";
+
+    private ETags() {
+    }
+
+    /**
+     * Сильный ETag для версии
+     * @param version версия сущности
+     * @return значение заголовка ETag
+     */
+    static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Сильный ETag версии для тела, сжатого gzip. Сжатое и несжатое тела различаются побайтно,
+     * поэтому по правилам сильного сравнения у них должны быть разные теги.
+     * @param version версия сущности
+     * @return значение заголовка ETag
+     */
+    static String gzip(long version) {
+        return "\"" + version + GZIP_SUFFIX + "\"";
+    }
+
+    /**
+     * Поиск в заголовке If-None-Match тега версии в любом из представлений: клиент мог получить
+     * тело как без сжатия, так и в gzip. Сравнение слабое, как требуется для If-None-Match.
+     * @param ifNoneMatch значение заголовка If-None-Match
+     * @param version текущая версия сущности
+     * @return совпавший тег или null, если версия клиента устарела
+     */
+    static String matchIfNoneMatch(String ifNoneMatch, long version) {
+        if (ifNoneMatch == null) {
+            return null;
+        }
+        String plain = of(version);
+        String compressed = gzip(version);
+        for (String tag : ifNoneMatch.split(",")) {
+            String value = tag.trim();
+            if (ANY.equals(value)) {
+                return plain;
+            }
+            if (value.startsWith(WEAK_PREFIX)) {
+                value = value.substring(WEAK_PREFIX.length());
+            }
+            if (value.equals(plain) || value.equals(compressed)) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Разбор заголовка If-Match. Поддерживается одно сильное значение, выданное {@link #of(long)}
+     * или {@link #gzip(long)}, или "*"; слабые и чужие значения по правилам сильного сравнения
+     * не совпадают ни с одной версией.
+     * @param ifMatch значение заголовка If-Match
+     * @return ожидаемая версия или null, если заголовок отсутствует или равен "*"
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (ANY.equals(value)) {
+            return null;
+        }
+        if (value.length() > 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            try {
+                String version = value.substring(1, value.length() - 1);
+                if (version.endsWith(GZIP_SUFFIX)) {
+                    version = version.substring(0, version.length() - GZIP_SUFFIX.length());
+                }
+                return Long.parseLong(version);
+            } catch (NumberFormatException ignored) {
+                // обрабатывается ниже как несовпадение
+            }
+        }
+        throw new PreconditionFailedException("Заголовок If-Match не соответствует текущей версии");
+    }
+}
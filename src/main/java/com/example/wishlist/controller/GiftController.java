@@ -1,19 +1,25 @@
 package com.example.wishlist.controller;
 
+import com.example.wishlist.dto.CursorPage;
+import com.example.wishlist.dto.GiftBatchItemResult;
+import com.example.wishlist.dto.GiftBatchRequest;
 import com.example.wishlist.dto.GiftDto;
-import com.example.wishlist.model.Gift;
-import com.example.wishlist.model.User;
+import com.example.wishlist.dto.GiftResponse;
+import com.example.wishlist.security.AuthenticatedUser;
 import com.example.wishlist.service.GiftService;
-import com.example.wishlist.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -29,47 +35,107 @@ import java.util.UUID;
 public class GiftController {
 
     private final GiftService giftService;
-    private final UserService userService;
+    private final SerializedResponseCache responseCache;
 
     /**
      * Создание нового подарка
      * @param wishListId идентификатор списка желаний
      * @param giftDto данные подарка
-     * @param userDetails данные авторизованного пользователя
+     * @param currentUser авторизованный пользователь
      * @return созданный подарок
      */
     @PostMapping("/wishlist/{wishListId}")
     @Operation(summary = "Создание нового подарка")
-    public ResponseEntity<Gift> createGift(
+    public ResponseEntity<GiftResponse> createGift(
             @PathVariable UUID wishListId,
             @Valid @RequestBody GiftDto giftDto,
-            @AuthenticationPrincipal UserDetails userDetails) {
-        User user = userService.getUserByUsername(userDetails.getUsername());
-        Gift gift = giftService.createGift(giftDto, wishListId, user.getId());
+            @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        GiftResponse gift = giftService.createGift(giftDto, wishListId, currentUser.getId());
         return ResponseEntity.ok(gift);
     }
 
     /**
-     * Получение подарка по id
+     * Пакетное создание, обновление и удаление подарков в списке желаний
+     * @param wishListId идентификатор списка желаний
+     * @param request набор операций
+     * @param currentUser авторизованный пользователь
+     * @return результаты по каждому элементу запроса
+     */
+    @PostMapping("/wishlist/{wishListId}/batch")
+    @Operation(summary = "Пакетное изменение подарков в списке желаний")
+    public ResponseEntity<List<GiftBatchItemResult>> applyBatch(
+            @PathVariable UUID wishListId,
+            @Valid @RequestBody GiftBatchRequest request,
+            @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        List<GiftBatchItemResult> results = giftService.applyBatch(wishListId, request, currentUser.getId());
+        return ResponseEntity.ok(results);
+    }
+
+    /**
+     * Получение подарка по id. Если ETag клиента совпадает с текущей версией,
+     * возвращается 304 без тела; версия проверяется до загрузки данных подарка.
      * @param id идентификатор подарка
+     * @param request текущий запрос, используется для проверки If-None-Match
      * @return подарок
      */
     @GetMapping("/{id}")
     @Operation(summary = "Получение подарка по id")
-    public ResponseEntity<Gift> getGift(@PathVariable UUID id) {
-        Gift gift = giftService.getGiftById(id);
-        return ResponseEntity.ok(gift);
+    public ResponseEntity<GiftResponse> getGift(@PathVariable UUID id, WebRequest request) {
+        if (request.checkNotModified(ETags.of(giftService.getGiftVersion(id)))) {
+            return null;
+        }
+        GiftResponse gift = giftService.getGiftResponse(id);
+        return ResponseEntity.ok().eTag(ETags.of(gift.getVersion())).body(gift);
     }
 
     /**
-     * Получение всех подарков в списке желаний
+     * Получение всех подарков в списке желаний. Страницы кэшируются готовыми ответами
+     * по версии списка, курсору и размеру страницы.
      * @param wishListId идентификатор списка желаний
-     * @return список подарков
+     * @param cursor курсор страницы из предыдущего ответа
+     * @param size размер страницы
+     * @param acceptEncoding кодировки, которые принимает клиент; при поддержке gzip тело сжимается
+     * @param request текущий запрос, используется для проверки If-None-Match
+     * @return страница подарков; 304 без тела, если версия списка не изменилась
      */
     @GetMapping("/wishlist/{wishListId}")
     @Operation(summary = "Получение всех подарков в списке желаний")
-    public ResponseEntity<List<Gift>> getAllGiftsInWishList(@PathVariable UUID wishListId) {
-        List<Gift> gifts = giftService.getAllGiftsByWishListId(wishListId);
+    @ApiResponse(responseCode = "200", content = @Content(
+            mediaType = "application/json", schema = @Schema(implementation = CursorPage.class)))
+    public ResponseEntity<byte[]> getAllGiftsInWishList(
+            @PathVariable UUID wishListId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request) {
+        // курсор разбирается до проверки версии: некорректный дает 400 без ETag, а не 304 или запись в кэше
+        String page = "gifts:" + CursorPage.decodeCursor(cursor) + ":" + CursorPage.pageSize(size);
+        long version = giftService.getWishListVersion(wishListId);
+        if (responseCache.checkNotModified(request, version)) {
+            return null;
+        }
+        return responseCache.respond(wishListId, version, page, acceptEncoding,
+                () -> giftService.getAllGiftsByWishListId(wishListId, cursor, size));
+    }
+
+    /**
+     * Полнотекстовый поиск подарков по названию и описанию с учетом префиксов слов
+     * @param q поисковый запрос
+     * @param wishListId список желаний, в котором выполняется поиск; по умолчанию все списки пользователя
+     * @param cursor курсор страницы из предыдущего ответа
+     * @param size размер страницы
+     * @param currentUser авторизованный пользователь
+     * @return страница найденных подарков, упорядоченных по релевантности
+     */
+    @GetMapping("/search")
+    @Operation(summary = "Поиск подарков по названию и описанию")
+    public ResponseEntity<CursorPage<GiftResponse>> searchGifts(
+            @RequestParam String q,
+            @RequestParam(required = false) UUID wishListId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        CursorPage<GiftResponse> gifts = giftService.searchGifts(q, wishListId, currentUser.getId(), cursor, size);
         return ResponseEntity.ok(gifts);
     }
 
@@ -77,45 +143,57 @@ public class GiftController {
      * Обновление подарка
      * @param id идентификатор подарка
      * @param giftDto новые данные
-     * @param userDetails данные авторизованного пользователя
+     * @param currentUser авторизованный пользователь
+     * @param ifMatch ETag версии, на основе которой сделаны изменения; 412, если подарок уже изменен
      * @return обновленный подарок
      */
     @PutMapping("/{id}")
     @Operation(summary = "Обновление подарка")
-    public ResponseEntity<Gift> updateGift(
+    public ResponseEntity<GiftResponse> updateGift(
             @PathVariable UUID id,
             @Valid @RequestBody GiftDto giftDto,
-            @AuthenticationPrincipal UserDetails userDetails) {
-        User user = userService.getUserByUsername(userDetails.getUsername());
-        Gift gift = giftService.updateGift(id, giftDto, user.getId());
-        return ResponseEntity.ok(gift);
+            @AuthenticationPrincipal AuthenticatedUser currentUser,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        GiftResponse gift = giftService.updateGift(id, giftDto, currentUser.getId(), ETags.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(gift.getVersion())).body(gift);
     }
 
     /**
      * Удаление подарка
      * @param id идентификатор подарка
-     * @param userDetails данные авторизованного пользователя
+     * @param currentUser авторизованный пользователь
      * @return статус операции
      */
     @DeleteMapping("/{id}")
     @Operation(summary = "Удаление подарка")
     public ResponseEntity<?> deleteGift(
             @PathVariable UUID id,
-            @AuthenticationPrincipal UserDetails userDetails) {
-        User user = userService.getUserByUsername(userDetails.getUsername());
-        giftService.deleteGift(id, user.getId());
+            @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        giftService.deleteGift(id, currentUser.getId());
         return ResponseEntity.ok().build();
     }
 
     /**
-     * Переключение статуса зарезервированности подарка
+     * Резервирование подарка
      * @param id идентификатор подарка
-     * @return подарок
+     * @return статус операции: 409, если подарок уже зарезервирован
      */
-    @PutMapping("/{id}/reserve")
-    @Operation(summary = "Переключение статуса зарезервированности подарка")
-    public ResponseEntity<Gift> toggleReserved(@PathVariable UUID id) {
-        Gift gift = giftService.toggleReserved(id);
-        return ResponseEntity.ok(gift);
+    @PostMapping("/{id}/reserve")
+    @Operation(summary = "Резервирование подарка")
+    public ResponseEntity<Void> reserveGift(@PathVariable UUID id) {
+        giftService.reserveGift(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Снятие резерва с подарка
+     * @param id идентификатор подарка
+     * @return статус операции: 409, если подарок не зарезервирован
+     */
+    @DeleteMapping("/{id}/reserve")
+    @Operation(summary = "Снятие резерва с подарка")
+    public ResponseEntity<Void> unreserveGift(@PathVariable UUID id) {
+        giftService.unreserveGift(id);
+        return ResponseEntity.noContent().build();
     }
 }
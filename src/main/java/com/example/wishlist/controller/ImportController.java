@@ -0,0 +1,94 @@
+package com.example.wishlist.controller;
+
+import com.example.wishlist.dto.ImportJobResponse;
+import com.example.wishlist.dto.ImportLineErrorResponse;
+import com.example.wishlist.model.ImportFormat;
+import com.example.wishlist.security.AuthenticatedUser;
+import com.example.wishlist.service.WishListImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Контроллер импорта списков желаний и подарков из файлов
+ */
+@RestController
+@RequestMapping("/api/imports")
+@RequiredArgsConstructor
+@Tag(name = "Импорт", description = "API для импорта списков желаний из CSV и NDJSON")
+@SecurityRequirement(name = "Bearer Authentication")
+public class ImportController {
+
+    private final WishListImportService wishListImportService;
+
+    /**
+     * Создание задания импорта
+     * @param format формат файла
+     * @param currentUser авторизованный пользователь
+     * @return созданное задание
+     */
+    @PostMapping
+    @Operation(summary = "Создание задания импорта")
+    public ResponseEntity<ImportJobResponse> createImport(
+            @RequestParam ImportFormat format,
+            @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        return ResponseEntity.ok(wishListImportService.createJob(format, currentUser.getId()));
+    }
+
+    /**
+     * Загрузка файла в задание импорта. Тело запроса обрабатывается потоком; после обрыва
+     * тот же файл можно загрузить повторно, уже импортированные строки будут пропущены.
+     * @param id идентификатор задания
+     * @param content содержимое файла в UTF-8
+     * @param currentUser авторизованный пользователь
+     * @return состояние задания после загрузки: 409, если файл уже загружается или импорт завершен
+     */
+    @PutMapping("/{id}/content")
+    @Operation(summary = "Загрузка файла в задание импорта")
+    public ResponseEntity<ImportJobResponse> uploadContent(
+            @PathVariable UUID id,
+            InputStream content,
+            @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        return ResponseEntity.ok(wishListImportService.runImport(id, currentUser.getId(), content));
+    }
+
+    /**
+     * Получение состояния и прогресса задания импорта
+     * @param id идентификатор задания
+     * @param currentUser авторизованный пользователь
+     * @return состояние задания
+     */
+    @GetMapping("/{id}")
+    @Operation(summary = "Получение состояния задания импорта")
+    public ResponseEntity<ImportJobResponse> getImport(
+            @PathVariable UUID id,
+            @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        return ResponseEntity.ok(wishListImportService.getJob(id, currentUser.getId()));
+    }
+
+    /**
+     * Получение ошибок строк задания импорта
+     * @param id идентификатор задания
+     * @param afterLine номер строки, после которой начинается страница
+     * @param size размер страницы
+     * @param currentUser авторизованный пользователь
+     * @return ошибки, упорядоченные по номеру строки
+     */
+    @GetMapping("/{id}/errors")
+    @Operation(summary = "Получение ошибок строк задания импорта")
+    public ResponseEntity<List<ImportLineErrorResponse>> getImportErrors(
+            @PathVariable UUID id,
+            @RequestParam(required = false) Long afterLine,
+            @RequestParam(required = false) Integer size,
+            @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        return ResponseEntity.ok(wishListImportService.getErrors(id, currentUser.getId(), afterLine, size));
+    }
+}
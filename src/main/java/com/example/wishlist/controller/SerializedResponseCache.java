@@ -0,0 +1,149 @@
+package com.example.wishlist.controller;
+
+import com.example.wishlist.config.ReadReplicaRoutingDataSource;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Кэш готовых JSON-ответов публичного просмотра списка желаний. Ключ содержит версию списка:
+ * любое изменение списка или его подарков увеличивает версию, поэтому устаревшие ответы
+ * больше не запрашиваются и вытесняются по размеру или времени жизни.
+ */
+@Component
+class SerializedResponseCache {
+
+    /**
+     * Ответы меньше этого размера не сжимаются: выигрыш меньше накладных расходов gzip
+     */
+    private static final int GZIP_MIN_SIZE = 1024;
+
+    private static final String GZIP = "gzip";
+
+    private final Cache<Key, byte[]> responses;
+    private final ObjectMapper objectMapper;
+
+    SerializedResponseCache(ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${wishlist.response-cache.max-size:64MB}") DataSize maxSize,
+                            @Value("${wishlist.response-cache.ttl:10m}") Duration ttl) {
+        this.objectMapper = objectMapper;
+        this.responses = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Key key, byte[] bytes) -> bytes.length)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build(), "wishlist-responses");
+    }
+
+    /**
+     * Проверка If-None-Match по версии списка. Несжатое тело и тело в gzip имеют разные
+     * сильные ETag, совпадением считается любой из них.
+     * @param request текущий запрос
+     * @param version текущая версия списка
+     * @return true, если подготовлен ответ 304 и тело не нужно
+     */
+    boolean checkNotModified(WebRequest request, long version) {
+        String eTag = ETags.matchIfNoneMatch(request.getHeader(HttpHeaders.IF_NONE_MATCH), version);
+        return eTag != null && request.checkNotModified(eTag);
+    }
+
+    /**
+     * Ответ 200 с закэшированным телом. При промахе тело сериализуется тем же ObjectMapper,
+     * что и в конвертере MVC, и, если клиент принимает gzip, сжимается. Вычисление идет вне
+     * блокировки кэша: параллельные промахи одного ключа сериализуют тело повторно.
+     * <p>
+     * Тело строится на основной базе: версия в ключе может быть прочитана с основной базы,
+     * и страница с отстающей реплики осталась бы в кэше под более новой версией.
+     * Транзакция построения должна начинаться внутри {@code body}.
+     * @param wishListId идентификатор списка желаний
+     * @param version версия списка, на которой построено тело
+     * @param variant вид ответа: сам список или конкретная страница подарков
+     * @param acceptEncoding значение заголовка Accept-Encoding запроса
+     * @param body построение тела ответа при промахе
+     * @return ответ с ETag версии и кодировки и готовыми байтами тела
+     */
+    ResponseEntity<byte[]> respond(UUID wishListId, long version, String variant, String acceptEncoding,
+                                   Supplier<?> body) {
+        Key key = new Key(wishListId, version, variant, false);
+        byte[] json = responses.getIfPresent(key);
+        if (json == null) {
+            json = serialize(ReadReplicaRoutingDataSource.onPrimary(body));
+            responses.put(key, json);
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (json.length < GZIP_MIN_SIZE || !acceptsGzip(acceptEncoding)) {
+            return response.eTag(ETags.of(version)).body(json);
+        }
+
+        Key gzipKey = new Key(wishListId, version, variant, true);
+        byte[] compressed = responses.getIfPresent(gzipKey);
+        if (compressed == null) {
+            compressed = gzip(json);
+            responses.put(gzipKey, compressed);
+        }
+        return response.eTag(ETags.gzip(version)).header(HttpHeaders.CONTENT_ENCODING, GZIP).body(compressed);
+    }
+
+    private byte[] serialize(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Response serialization failed", ex);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(json);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Response compression failed", ex);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Проверка, что клиент принимает gzip. Кодировка с q=0 явно запрещена клиентом.
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if (GZIP.equalsIgnoreCase(parts[0].trim())) {
+                return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0{0,3})?");
+            }
+        }
+        return false;
+    }
+
+    @lombok.Value
+    private static class Key {
+        UUID wishListId;
+        long version;
+        String variant;
+        boolean gzip;
+    }
+}
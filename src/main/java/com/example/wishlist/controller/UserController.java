@@ -1,14 +1,20 @@
 package com.example.wishlist.controller;
 
-import com.example.wishlist.model.User;
-import com.example.wishlist.model.WishList;
+import com.example.wishlist.dto.CursorPage;
+import com.example.wishlist.dto.UserResponse;
+import com.example.wishlist.dto.WishListResponse;
+import com.example.wishlist.security.AuthenticatedUser;
+import com.example.wishlist.service.UserDataExportService;
 import com.example.wishlist.service.UserService;
 import com.example.wishlist.service.WishListService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
 import java.util.UUID;
 
 /**
@@ -21,23 +27,50 @@ public class UserController {
 
     private final UserService userService;
     private final WishListService wishListService;
+    private final UserDataExportService userDataExportService;
 
     /**
      * Получение списка всех пользователей
-     * @return список пользователей
+     * @param cursor курсор страницы из предыдущего ответа
+     * @param size размер страницы
+     * @return страница пользователей
      */
     @GetMapping
-    public ResponseEntity<List<User>> getAllUsers() {
-        return ResponseEntity.ok(userService.getAllUsers());
+    public ResponseEntity<CursorPage<UserResponse>> getAllUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(userService.getAllUsers(cursor, size));
+    }
+
+    /**
+     * Выгрузка всех списков желаний и подарков текущего пользователя в формате NDJSON:
+     * по одной записи в строке, за каждым списком следуют его подарки. Ответ пишется потоком.
+     * @param currentUser авторизованный пользователь
+     * @return поток выгрузки
+     */
+    @GetMapping(value = "/me/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportCurrentUserData(
+            @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        UUID userId = currentUser.getId();
+        StreamingResponseBody body = out -> userDataExportService.export(userId, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"wishlist-export.ndjson\"")
+                .body(body);
     }
 
     /**
      * Получение списков желаний конкретного пользователя
      * @param userId идентификатор пользователя
-     * @return список желаний пользователя
+     * @param cursor курсор страницы из предыдущего ответа
+     * @param size размер страницы
+     * @return страница списков желаний пользователя
      */
     @GetMapping("/{userId}/wishlists")
-    public ResponseEntity<List<WishList>> getUserWishlists(@PathVariable UUID userId) {
-        return ResponseEntity.ok(wishListService.getAllWishListsByUserId(userId));
+    public ResponseEntity<CursorPage<WishListResponse>> getUserWishlists(
+            @PathVariable UUID userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(wishListService.getAllWishListsByUserId(userId, cursor, size));
     }
 }
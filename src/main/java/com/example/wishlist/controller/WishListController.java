@@ -1,19 +1,24 @@
 package com.example.wishlist.controller;
 
+import com.example.wishlist.dto.CursorPage;
 import com.example.wishlist.dto.WishListDto;
-import com.example.wishlist.model.User;
-import com.example.wishlist.model.WishList;
-import com.example.wishlist.service.UserService;
+import com.example.wishlist.dto.WishListResponse;
+import com.example.wishlist.dto.WishListSummaryResponse;
+import com.example.wishlist.security.AuthenticatedUser;
 import com.example.wishlist.service.WishListService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -29,59 +34,101 @@ import java.util.UUID;
 public class WishListController {
 
     private final WishListService wishListService;
-    private final UserService userService;
+    private final SerializedResponseCache responseCache;
 
     /**
      * Создание нового списка желаний
      * @param wishListDto данные списка желаний
-     * @param userDetails данные авторизованного пользователя
+     * @param currentUser авторизованный пользователь
      * @return созданный список желаний
      */
     @PostMapping
     @Operation(summary = "Создание нового списка желаний")
-    public ResponseEntity<WishList> createWishList(
+    public ResponseEntity<WishListResponse> createWishList(
             @Valid @RequestBody WishListDto wishListDto,
-            @AuthenticationPrincipal UserDetails userDetails) {
-        User user = userService.getUserByUsername(userDetails.getUsername());
-        WishList wishList = wishListService.createWishList(wishListDto, user.getId());
+            @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        WishListResponse wishList = wishListService.createWishList(wishListDto, currentUser.getId());
         return ResponseEntity.ok(wishList);
     }
 
     /**
-     * Получение списка желаний по id
+     * Получение списка желаний по id. Если ETag клиента совпадает с текущей версией,
+     * возвращается 304 без тела; версия проверяется до сборки представления с подарками.
+     * Иначе тело берется из кэша готовых ответов этой версии.
      * @param id идентификатор списка желаний
+     * @param acceptEncoding кодировки, которые принимает клиент; при поддержке gzip тело сжимается
+     * @param request текущий запрос, используется для проверки If-None-Match
      * @return список желаний
      */
     @GetMapping("/{id}")
     @Operation(summary = "Получение списка желаний по id")
-    public ResponseEntity<WishList> getWishList(@PathVariable UUID id) {
-        WishList wishList = wishListService.getWishListById(id);
-        return ResponseEntity.ok(wishList);
+    @ApiResponse(responseCode = "200", content = @Content(
+            mediaType = "application/json", schema = @Schema(implementation = WishListResponse.class)))
+    public ResponseEntity<byte[]> getWishList(
+            @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request) {
+        long version = wishListService.getWishListVersion(id);
+        if (responseCache.checkNotModified(request, version)) {
+            return null;
+        }
+        return responseCache.respond(id, version, "wishlist", acceptEncoding,
+                () -> wishListService.getWishListResponse(id));
+    }
+
+    /**
+     * Получение сводных показателей списка желаний: число подарков, число резервов и суммы цен
+     * @param id идентификатор списка желаний
+     * @return сводка списка желаний
+     */
+    @GetMapping("/{id}/summary")
+    @Operation(summary = "Получение сводки списка желаний")
+    public ResponseEntity<WishListSummaryResponse> getWishListSummary(@PathVariable UUID id) {
+        return ResponseEntity.ok(wishListService.getSummary(id));
+    }
+
+    /**
+     * Получение сводок нескольких списков желаний одним запросом
+     * @param ids идентификаторы списков желаний
+     * @return сводки найденных списков желаний
+     */
+    @GetMapping("/summaries")
+    @Operation(summary = "Получение сводок нескольких списков желаний")
+    public ResponseEntity<List<WishListSummaryResponse>> getWishListSummaries(@RequestParam List<UUID> ids) {
+        return ResponseEntity.ok(wishListService.getSummaries(ids));
     }
 
     /**
      * Получение всех списков желаний пользователя по его ID
      * @param userId идентификатор пользователя
-     * @return список желаний пользователя
+     * @param cursor курсор страницы из предыдущего ответа
+     * @param size размер страницы
+     * @return страница списков желаний пользователя
      */
     @GetMapping("/user/{userId}")
     @Operation(summary = "Получение всех списков желаний пользователя по его ID")
-    public ResponseEntity<List<WishList>> getUserWishLists(@PathVariable UUID userId) {
-        List<WishList> wishLists = wishListService.getAllWishListsByUserId(userId);
+    public ResponseEntity<CursorPage<WishListResponse>> getUserWishLists(
+            @PathVariable UUID userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<WishListResponse> wishLists = wishListService.getAllWishListsByUserId(userId, cursor, size);
         return ResponseEntity.ok(wishLists);
     }
 
     /**
      * Получение всех списков желаний текущего пользователя
-     * @param userDetails данные авторизованного пользователя
-     * @return список желаний пользователя
+     * @param currentUser авторизованный пользователь
+     * @param cursor курсор страницы из предыдущего ответа
+     * @param size размер страницы
+     * @return страница списков желаний пользователя
      */
     @GetMapping
     @Operation(summary = "Получение всех списков желаний текущего пользователя")
-    public ResponseEntity<List<WishList>> getCurrentUserWishLists(
-            @AuthenticationPrincipal UserDetails userDetails) {
-        User user = userService.getUserByUsername(userDetails.getUsername());
-        List<WishList> wishLists = wishListService.getAllWishListsByUserId(user.getId());
+    public ResponseEntity<CursorPage<WishListResponse>> getCurrentUserWishLists(
+            @AuthenticationPrincipal AuthenticatedUser currentUser,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<WishListResponse> wishLists = wishListService.getAllWishListsByUserId(currentUser.getId(), cursor, size);
         return ResponseEntity.ok(wishLists);
     }
 
@@ -89,33 +136,34 @@ public class WishListController {
      * Обновление списка желаний
      * @param id идентификатор списка желаний
      * @param wishListDto новые данные
-     * @param userDetails данные авторизованного пользователя
+     * @param currentUser авторизованный пользователь
+     * @param ifMatch ETag версии, на основе которой сделаны изменения; 412, если список уже изменен
      * @return обновленный список желаний
      */
     @PutMapping("/{id}")
     @Operation(summary = "Обновление списка желаний")
-    public ResponseEntity<WishList> updateWishList(
+    public ResponseEntity<WishListResponse> updateWishList(
             @PathVariable UUID id,
             @Valid @RequestBody WishListDto wishListDto,
-            @AuthenticationPrincipal UserDetails userDetails) {
-        User user = userService.getUserByUsername(userDetails.getUsername());
-        WishList wishList = wishListService.updateWishList(id, wishListDto, user.getId());
-        return ResponseEntity.ok(wishList);
+            @AuthenticationPrincipal AuthenticatedUser currentUser,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        WishListResponse wishList = wishListService.updateWishList(
+                id, wishListDto, currentUser.getId(), ETags.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(wishList.getVersion())).body(wishList);
     }
 
     /**
      * Удаление списка желаний
      * @param id идентификатор списка желаний
-     * @param userDetails данные авторизованного пользователя
+     * @param currentUser авторизованный пользователь
      * @return статус операции
      */
     @DeleteMapping("/{id}")
     @Operation(summary = "Удаление списка желаний")
     public ResponseEntity<?> deleteWishList(
             @PathVariable UUID id,
-            @AuthenticationPrincipal UserDetails userDetails) {
-        User user = userService.getUserByUsername(userDetails.getUsername());
-        wishListService.deleteWishList(id, user.getId());
+            @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        wishListService.deleteWishList(id, currentUser.getId());
         return ResponseEntity.ok().build();
     }
 }
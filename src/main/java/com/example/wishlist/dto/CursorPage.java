@@ -0,0 +1,155 @@
+package com.example.wishlist.dto;
+
+import lombok.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Страница результатов с курсорной (keyset) пагинацией по идентификатору
+ * @param <T> тип элементов страницы
+ */
+@Value
+public class CursorPage<T> {
+
+    /**
+     * Размер страницы по умолчанию
+     */
+    public static final int DEFAULT_SIZE = 50;
+
+    /**
+     * Максимальный размер страницы
+     */
+    public static final int MAX_SIZE = 200;
+
+    /**
+     * Идентификатор, меньше которого нет ни одного UUID; используется для первой страницы
+     */
+    private static final UUID FIRST = new UUID(0L, 0L);
+
+    /**
+     * Элементы страницы
+     */
+    List<T> items;
+
+    /**
+     * Курсор следующей страницы, отсутствует на последней странице
+     */
+    String nextCursor;
+
+    /**
+     * Построение страницы из выборки, запрошенной с лимитом {@link #limit(int)}
+     * @param rows выборка, содержащая на один элемент больше размера страницы, если есть продолжение
+     * @param size размер страницы
+     * @param idExtractor получение идентификатора элемента
+     * @return страница
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, UUID> idExtractor) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, size);
+        return new CursorPage<>(List.copyOf(items), encodeCursor(idExtractor.apply(items.get(size - 1))));
+    }
+
+    /**
+     * Построение страницы из выборки со смещением, запрошенной с лимитом {@link #limit(int)}.
+     * Используется там, где порядок задается не идентификатором, например релевантностью поиска.
+     * @param rows выборка, содержащая на один элемент больше размера страницы, если есть продолжение
+     * @param offset смещение первого элемента страницы
+     * @param size размер страницы
+     * @return страница
+     */
+    public static <T> CursorPage<T> ofOffset(List<T> rows, int offset, int size) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        String next = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(ByteBuffer.allocate(4).putInt(offset + size).array());
+        return new CursorPage<>(List.copyOf(rows.subList(0, size)), next);
+    }
+
+    /**
+     * Декодирование курсора страницы со смещением
+     * @param cursor курсор, полученный на предыдущей странице, или null для первой страницы
+     * @return смещение первого элемента страницы
+     */
+    public static int decodeOffset(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0;
+        }
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length != 4) {
+                throw new IllegalArgumentException("Unexpected cursor length");
+            }
+            int offset = ByteBuffer.wrap(bytes).getInt();
+            if (offset < 0) {
+                throw new IllegalArgumentException("Negative offset");
+            }
+            return offset;
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Некорректный курсор");
+        }
+    }
+
+    /**
+     * Нормализация запрошенного размера страницы
+     * @param requested запрошенный размер
+     * @return размер страницы в пределах [1, MAX_SIZE]
+     */
+    public static int pageSize(Integer requested) {
+        if (requested == null) {
+            return DEFAULT_SIZE;
+        }
+        return Math.max(1, Math.min(requested, MAX_SIZE));
+    }
+
+    /**
+     * Лимит выборки: на один элемент больше страницы, чтобы определить наличие продолжения
+     * @param size размер страницы
+     * @return лимит запроса
+     */
+    public static Limit limit(int size) {
+        return Limit.of(size + 1);
+    }
+
+    /**
+     * Кодирование курсора
+     * @param lastId идентификатор последнего элемента страницы
+     * @return непрозрачный курсор
+     */
+    public static String encodeCursor(UUID lastId) {
+        ByteBuffer buffer = ByteBuffer.allocate(16)
+                .putLong(lastId.getMostSignificantBits())
+                .putLong(lastId.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * Декодирование курсора
+     * @param cursor курсор, полученный на предыдущей странице, или null для первой страницы
+     * @return идентификатор, после которого начинается страница
+     */
+    public static UUID decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return FIRST;
+        }
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length != 16) {
+                throw new IllegalArgumentException("Unexpected cursor length");
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            return new UUID(buffer.getLong(), buffer.getLong());
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Некорректный курсор");
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.wishlist.dto;
+
+import lombok.Value;
+
+/**
+ * Строка выгрузки данных пользователя в формате NDJSON
+ */
+@Value
+public class ExportRecord {
+
+    /**
+     * Тип записи: wishlist или gift
+     */
+    String type;
+
+    /**
+     * Данные записи
+     */
+    Object data;
+
+    public static ExportRecord wishList(WishListExportRow wishList) {
+        return new ExportRecord("wishlist", wishList);
+    }
+
+    public static ExportRecord gift(GiftResponse gift) {
+        return new ExportRecord("gift", gift);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.wishlist.dto;
+
+import lombok.Value;
+
+import java.util.UUID;
+
+/**
+ * Результат обработки одного элемента пакетного запроса
+ */
+@Value
+public class GiftBatchItemResult {
+
+    /**
+     * Тип операции
+     */
+    public enum Operation {
+        CREATE, UPDATE, DELETE
+    }
+
+    /**
+     * Итог операции
+     */
+    public enum Status {
+        OK, INVALID, NOT_FOUND
+    }
+
+    /**
+     * Тип операции
+     */
+    Operation operation;
+
+    /**
+     * Позиция элемента в соответствующем списке запроса
+     */
+    int index;
+
+    /**
+     * Идентификатор подарка, если известен
+     */
+    UUID id;
+
+    /**
+     * Итог операции
+     */
+    Status status;
+
+    /**
+     * Описание ошибки
+     */
+    String message;
+
+    /**
+     * Данные подарка после создания или обновления
+     */
+    GiftResponse gift;
+
+    public static GiftBatchItemResult ok(Operation operation, int index, UUID id, GiftResponse gift) {
+        return new GiftBatchItemResult(operation, index, id, Status.OK, null, gift);
+    }
+
+    public static GiftBatchItemResult failed(Operation operation, int index, UUID id, Status status, String message) {
+        return new GiftBatchItemResult(operation, index, id, status, message, null);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.wishlist.dto;
+
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * DTO пакетного изменения подарков в одном списке желаний.
+ * Элементы валидируются по отдельности, ошибка в одном из них не отменяет остальные.
+ */
+@Data
+@NoArgsConstructor
+public class GiftBatchRequest {
+
+    /**
+     * Подарки для создания
+     */
+    @Size(max = 500, message = "Не более 500 подарков для создания за один запрос")
+    private List<GiftDto> create = new ArrayList<>();
+
+    /**
+     * Подарки для обновления
+     */
+    @Size(max = 500, message = "Не более 500 подарков для обновления за один запрос")
+    private List<GiftUpdateDto> update = new ArrayList<>();
+
+    /**
+     * Идентификаторы подарков для удаления
+     */
+    @Size(max = 500, message = "Не более 500 подарков для удаления за один запрос")
+    private List<UUID> delete = new ArrayList<>();
+}
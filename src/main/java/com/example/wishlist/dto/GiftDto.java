@@ -1,6 +1,7 @@
 package com.example.wishlist.dto;
 
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
@@ -31,11 +32,13 @@ public class GiftDto {
     /**
      * Изображение подарка
      */
+    @Size(max = 255, message = "Ссылка на изображение не может быть длиннее 255 символов")
     private String imageUrl;
 
     /**
      * Цена подарка
      */
     @DecimalMin(value = "0.0", inclusive = true, message = "Цена не может быть отрицательной")
+    @Digits(integer = 8, fraction = 2, message = "Цена должна быть не больше 99999999.99 и содержать не более двух знаков после запятой")
     private BigDecimal price;
 }
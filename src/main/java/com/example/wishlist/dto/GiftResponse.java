@@ -0,0 +1,71 @@
+package com.example.wishlist.dto;
+
+import com.example.wishlist.model.Gift;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Ответ с данными подарка
+ */
+@Value
+public class GiftResponse {
+
+    /**
+     * Уникальный идентификатор подарка
+     */
+    UUID id;
+
+    /**
+     * Название подарка
+     */
+    String name;
+
+    /**
+     * Описание подарка
+     */
+    String description;
+
+    /**
+     * Ссылка на изображение подарка
+     */
+    String imageUrl;
+
+    /**
+     * Цена подарка
+     */
+    BigDecimal price;
+
+    /**
+     * Флаг, указывающий, что подарок уже зарезервирован
+     */
+    boolean reserved;
+
+    /**
+     * Идентификатор списка желаний, к которому относится подарок
+     */
+    UUID wishListId;
+
+    /**
+     * Версия подарка, используется в ETag
+     */
+    long version;
+
+    /**
+     * Преобразование сущности подарка в ответ
+     * @param gift подарок
+     * @return данные подарка
+     */
+    public static GiftResponse from(Gift gift) {
+        return new GiftResponse(
+                gift.getId(),
+                gift.getName(),
+                gift.getDescription(),
+                gift.getImageUrl(),
+                gift.getPrice(),
+                gift.isReserved(),
+                gift.getWishList().getId(),
+                gift.getVersion());
+    }
+}
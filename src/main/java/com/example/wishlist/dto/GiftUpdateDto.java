@@ -0,0 +1,23 @@
+package com.example.wishlist.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * DTO для обновления подарка в пакетной операции
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class GiftUpdateDto extends GiftDto {
+
+    /**
+     * Идентификатор обновляемого подарка
+     */
+    @NotNull(message = "Идентификатор подарка обязателен")
+    private UUID id;
+}
@@ -0,0 +1,66 @@
+package com.example.wishlist.dto;
+
+import com.example.wishlist.model.ImportFormat;
+import com.example.wishlist.model.ImportJob;
+import com.example.wishlist.model.ImportStatus;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Состояние задания импорта
+ */
+@Value
+public class ImportJobResponse {
+
+    /**
+     * Идентификатор задания
+     */
+    UUID id;
+
+    /**
+     * Формат файла
+     */
+    ImportFormat format;
+
+    /**
+     * Состояние задания
+     */
+    ImportStatus status;
+
+    /**
+     * Номер последней обработанной строки; повторная загрузка файла продолжится со следующей
+     */
+    long lastLine;
+
+    /**
+     * Число созданных списков желаний
+     */
+    long wishListsCreated;
+
+    /**
+     * Число созданных подарков
+     */
+    long giftsCreated;
+
+    /**
+     * Число строк с ошибками
+     */
+    long failedLines;
+
+    /**
+     * Причина прерывания импорта
+     */
+    String message;
+
+    Instant createdAt;
+
+    Instant updatedAt;
+
+    public static ImportJobResponse from(ImportJob job) {
+        return new ImportJobResponse(job.getId(), job.getFormat(), job.getStatus(), job.getLastLine(),
+                job.getWishListsCreated(), job.getGiftsCreated(), job.getFailedLines(), job.getMessage(),
+                job.getCreatedAt(), job.getUpdatedAt());
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.wishlist.dto;
+
+import com.example.wishlist.model.ImportJobError;
+import lombok.Value;
+
+/**
+ * Ошибка обработки строки файла импорта
+ */
+@Value
+public class ImportLineErrorResponse {
+
+    /**
+     * Номер строки файла, начиная с 1
+     */
+    long lineNumber;
+
+    /**
+     * Описание ошибки
+     */
+    String message;
+
+    public static ImportLineErrorResponse from(ImportJobError error) {
+        return new ImportLineErrorResponse(error.getLineNumber(), error.getMessage());
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.wishlist.dto;
+
+import com.example.wishlist.model.User;
+import lombok.Value;
+
+import java.util.UUID;
+
+/**
+ * Краткие данные владельца списка желаний
+ */
+@Value
+public class OwnerSummary {
+
+    /**
+     * Идентификатор пользователя
+     */
+    UUID id;
+
+    /**
+     * Имя пользователя
+     */
+    String username;
+
+    /**
+     * Преобразование сущности пользователя в краткие данные владельца
+     * @param user пользователь
+     * @return данные владельца
+     */
+    public static OwnerSummary from(User user) {
+        return new OwnerSummary(user.getId(), user.getUsername());
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.wishlist.dto;
+
+import lombok.Value;
+
+import java.util.UUID;
+
+/**
+ * Публичные данные пользователя
+ */
+@Value
+public class UserResponse {
+
+    /**
+     * Уникальный идентификатор пользователя
+     */
+    UUID id;
+
+    /**
+     * Имя пользователя (логин)
+     */
+    String username;
+}
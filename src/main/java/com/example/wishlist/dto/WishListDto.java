@@ -1,6 +1,7 @@
 package com.example.wishlist.dto;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 
 /**
@@ -13,10 +14,12 @@ public class WishListDto {
      * Название списка желаний
      */
     @NotBlank(message = "Название списка обязательно")
+    @Size(max = 255, message = "Название списка не может быть длиннее 255 символов")
     private String title;
     
     /**
      * Описание списка желаний
      */
+    @Size(max = 255, message = "Описание списка не может быть длиннее 255 символов")
     private String description;
 }
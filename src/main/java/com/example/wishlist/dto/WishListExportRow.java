@@ -0,0 +1,32 @@
+package com.example.wishlist.dto;
+
+import lombok.Value;
+
+import java.util.UUID;
+
+/**
+ * Данные списка желаний в выгрузке пользователя
+ */
+@Value
+public class WishListExportRow {
+
+    /**
+     * Уникальный идентификатор списка желаний
+     */
+    UUID id;
+
+    /**
+     * Название списка желаний
+     */
+    String title;
+
+    /**
+     * Описание списка желаний
+     */
+    String description;
+
+    /**
+     * Версия списка желаний
+     */
+    long version;
+}
@@ -0,0 +1,70 @@
+package com.example.wishlist.dto;
+
+import com.example.wishlist.model.WishList;
+import lombok.Value;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Ответ с данными списка желаний и его подарками
+ */
+@Value
+public class WishListResponse {
+
+    /**
+     * Уникальный идентификатор списка желаний
+     */
+    UUID id;
+
+    /**
+     * Название списка желаний
+     */
+    String title;
+
+    /**
+     * Описание списка желаний
+     */
+    String description;
+
+    /**
+     * Владелец списка желаний
+     */
+    OwnerSummary owner;
+
+    /**
+     * Первые подарки списка желаний, упорядоченные по id
+     */
+    List<GiftResponse> gifts;
+
+    /**
+     * Курсор для получения остальных подарков через GET /api/gifts/wishlist/{id};
+     * отсутствует, если в ответ вошли все подарки
+     */
+    String giftsNextCursor;
+
+    /**
+     * Версия списка желаний, используется в ETag
+     */
+    long version;
+
+    /**
+     * Преобразование сущности списка желаний в ответ со всеми подарками; используется для
+     * только что созданного списка. Должно вызываться внутри транзакции,
+     * так как владелец и подарки загружаются лениво.
+     * @param wishList список желаний
+     * @return данные списка желаний
+     */
+    public static WishListResponse from(WishList wishList) {
+        return new WishListResponse(
+                wishList.getId(),
+                wishList.getTitle(),
+                wishList.getDescription(),
+                OwnerSummary.from(wishList.getOwner()),
+                wishList.getGifts().stream()
+                        .map(GiftResponse::from)
+                        .toList(),
+                null,
+                wishList.getVersion());
+    }
+}
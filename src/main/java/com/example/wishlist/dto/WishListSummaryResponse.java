@@ -0,0 +1,53 @@
+package com.example.wishlist.dto;
+
+import com.example.wishlist.model.WishListStats;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Сводные показатели списка желаний
+ */
+@Value
+public class WishListSummaryResponse {
+
+    /**
+     * Идентификатор списка желаний
+     */
+    UUID wishListId;
+
+    /**
+     * Число подарков в списке
+     */
+    int giftCount;
+
+    /**
+     * Число зарезервированных подарков
+     */
+    int reservedCount;
+
+    /**
+     * Суммарная цена всех подарков
+     */
+    BigDecimal totalPrice;
+
+    /**
+     * Суммарная цена незарезервированных подарков
+     */
+    BigDecimal unreservedPrice;
+
+    /**
+     * Преобразование показателей в ответ
+     * @param stats показатели списка желаний
+     * @return сводка списка желаний
+     */
+    public static WishListSummaryResponse from(WishListStats stats) {
+        return new WishListSummaryResponse(
+                stats.getWishListId(),
+                stats.getGiftCount(),
+                stats.getReservedCount(),
+                stats.getTotalPrice(),
+                stats.getUnreservedPrice());
+    }
+}
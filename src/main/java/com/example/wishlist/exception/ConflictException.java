@@ -0,0 +1,11 @@
+package com.example.wishlist.exception;
+
+/**
+ * Исключение при конфликте с текущим состоянием ресурса, отдается клиенту как 409
+ */
+public class ConflictException extends RuntimeException {
+
+    public ConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.wishlist.exception;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Исключение при исчерпании слотов одновременного импорта, отдается клиенту как 503
+ */
+public class ImportBusyException extends ResponseStatusException {
+
+    private static final String RETRY_AFTER_SECONDS = "30";
+
+    public ImportBusyException() {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Выполняется слишком много импортов, повторите попытку позже");
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        return headers;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.wishlist.exception;
+
+/**
+ * Исключение при несовпадении версии из заголовка If-Match с текущей, отдается клиенту как 412
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.wishlist.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -14,13 +16,15 @@ import java.util.UUID;
 @NoArgsConstructor
 @Entity
 @Table(name = "gifts")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "gifts")
 public class Gift {
     
     /**
      * Уникальный идентификатор подарка
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     /**
@@ -53,6 +57,13 @@ public class Gift {
     @Column(name = "is_reserved")
     private boolean reserved;
 
+    /**
+     * Версия подарка для оптимистичных блокировок
+     */
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     /**
      * Список желаний, к которому относится подарок
      */
@@ -0,0 +1,17 @@
+package com.example.wishlist.model;
+
+/**
+ * Формат файла импорта
+ */
+public enum ImportFormat {
+
+    /**
+     * CSV с заголовком: wishlist_title, wishlist_description, gift_name, gift_description, gift_image_url, gift_price
+     */
+    CSV,
+
+    /**
+     * JSON по записи в строке, в формате выгрузки: {"type": "wishlist" | "gift", "data": {...}}
+     */
+    NDJSON
+}
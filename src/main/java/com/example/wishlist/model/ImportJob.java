@@ -0,0 +1,88 @@
+package com.example.wishlist.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Задание импорта списков желаний и подарков из файла
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "import_jobs")
+public class ImportJob {
+
+    /**
+     * Уникальный идентификатор задания
+     */
+    @Id
+    @UuidV7
+    @Column(name = "id", updatable = false, nullable = false)
+    private UUID id;
+
+    /**
+     * Пользователь, которому принадлежат импортируемые списки
+     */
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private UUID userId;
+
+    /**
+     * Формат файла
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ImportFormat format;
+
+    /**
+     * Состояние задания
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ImportStatus status;
+
+    /**
+     * Номер последней строки файла, изменения по которой зафиксированы
+     */
+    @Column(name = "last_line", nullable = false)
+    private long lastLine;
+
+    /**
+     * Список желаний, к которому относятся подарки, следующие за last_line
+     */
+    @Column(name = "current_wish_id")
+    private UUID currentWishListId;
+
+    /**
+     * Число созданных списков желаний
+     */
+    @Column(name = "wishlists_created", nullable = false)
+    private long wishListsCreated;
+
+    /**
+     * Число созданных подарков
+     */
+    @Column(name = "gifts_created", nullable = false)
+    private long giftsCreated;
+
+    /**
+     * Число строк с ошибками
+     */
+    @Column(name = "failed_lines", nullable = false)
+    private long failedLines;
+
+    /**
+     * Причина прерывания импорта
+     */
+    @Column(length = 1000)
+    private String message;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
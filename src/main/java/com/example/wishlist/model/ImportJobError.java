@@ -0,0 +1,40 @@
+package com.example.wishlist.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Ошибка обработки строки файла импорта
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "import_job_errors")
+public class ImportJobError {
+
+    @Id
+    @UuidV7
+    @Column(name = "id", updatable = false, nullable = false)
+    private UUID id;
+
+    /**
+     * Задание импорта
+     */
+    @Column(name = "job_id", nullable = false, updatable = false)
+    private UUID jobId;
+
+    /**
+     * Номер строки файла, начиная с 1
+     */
+    @Column(name = "line_number", nullable = false)
+    private long lineNumber;
+
+    /**
+     * Описание ошибки
+     */
+    @Column(nullable = false, length = 1000)
+    private String message;
+}
@@ -0,0 +1,27 @@
+package com.example.wishlist.model;
+
+/**
+ * Состояние задания импорта
+ */
+public enum ImportStatus {
+
+    /**
+     * Задание создано, данные еще не загружались
+     */
+    PENDING,
+
+    /**
+     * Данные загружаются
+     */
+    RUNNING,
+
+    /**
+     * Файл обработан полностью
+     */
+    COMPLETED,
+
+    /**
+     * Загрузка прервана; повторная загрузка того же файла продолжит импорт
+     */
+    FAILED
+}
@@ -0,0 +1,20 @@
+package com.example.wishlist.model;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Генерация первичного ключа в виде упорядоченного по времени UUID версии 7 (RFC 9562).
+ * Новые ключи попадают в конец индекса, а не в случайные страницы B-дерева.
+ */
+@IdGeneratorType(UuidV7Generator.class)
+@Retention(RUNTIME)
+@Target({FIELD, METHOD})
+public @interface UuidV7 {
+}
@@ -0,0 +1,70 @@
+package com.example.wishlist.model;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+import java.security.SecureRandom;
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Генератор UUID версии 7: 48 бит времени в миллисекундах, 12 бит счетчика и 62 случайных бита.
+ * Счетчик обеспечивает монотонность ключей, созданных в одну миллисекунду, в пределах процесса.
+ */
+public class UuidV7Generator implements BeforeExecutionGenerator {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * Последнее выданное значение: время в миллисекундах, сдвинутое на 12 бит, и счетчик
+     */
+    private static final AtomicLong LAST_TIMESTAMP_AND_COUNTER = new AtomicLong();
+
+    private static final int COUNTER_BITS = 12;
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return next();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+
+    /**
+     * Получение следующего UUID версии 7
+     * @return новый идентификатор
+     */
+    public static UUID next() {
+        long timestampAndCounter = nextTimestampAndCounter();
+        long timestamp = timestampAndCounter >>> COUNTER_BITS;
+        long counter = timestampAndCounter & COUNTER_MASK;
+
+        long mostSigBits = (timestamp << 16) | (0x7L << 12) | counter;
+        long leastSigBits = (RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    private static long nextTimestampAndCounter() {
+        long now = System.currentTimeMillis();
+        while (true) {
+            long last = LAST_TIMESTAMP_AND_COUNTER.get();
+            long next;
+            if (now > (last >>> COUNTER_BITS)) {
+                // Новая миллисекунда: счетчик начинается со случайного значения в нижней половине диапазона
+                next = (now << COUNTER_BITS) | RANDOM.nextInt(1 << (COUNTER_BITS - 1));
+            } else {
+                // Та же миллисекунда или откат часов: переполнение счетчика переносится в поле времени
+                next = last + 1;
+            }
+            if (LAST_TIMESTAMP_AND_COUNTER.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+}
@@ -1,11 +1,12 @@
 package com.example.wishlist.model;
 
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.GenericGenerator;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -15,17 +16,17 @@ import java.util.UUID;
  */
 @Entity
 @Table(name = "wishlists")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "wishlists")
 @Data
 @NoArgsConstructor
-@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class WishList {
     
     /**
      * Уникальный идентификатор списка желаний
      */
     @Id
-    @GeneratedValue(generator = "UUID")
-    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
+    @UuidV7
     @Column(name = "id", updatable = false, nullable = false)
     private UUID id;
 
@@ -41,18 +42,30 @@ public class WishList {
     @Column
     private String description;
 
+    /**
+     * Версия списка желаний; увеличивается также при изменении его подарков
+     */
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    /**
+     * Момент последнего изменения подарков списка; null, если подарки не менялись
+     */
+    @Column(name = "gifts_changed_at")
+    private Instant giftsChangedAt;
+
     /**
      * Владелец списка желаний
      */
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
-    @JsonIgnoreProperties({"wishLists", "email", "password"})
     private User owner;
 
     /**
      * Подарки в списке желаний
      */
     @OneToMany(mappedBy = "wishList", cascade = CascadeType.ALL, orphanRemoval = true)
-    @JsonIgnoreProperties("wishList")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "wishlist-gifts")
     private List<Gift> gifts = new ArrayList<>();
 }
@@ -0,0 +1,50 @@
+package com.example.wishlist.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Сводные показатели списка желаний. Обновляются атомарными приращениями
+ * в тех же транзакциях, что и подарки.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "wishlist_stats")
+public class WishListStats {
+
+    /**
+     * Идентификатор списка желаний
+     */
+    @Id
+    @Column(name = "wish_id", nullable = false)
+    private UUID wishListId;
+
+    /**
+     * Число подарков в списке
+     */
+    @Column(name = "gift_count", nullable = false)
+    private int giftCount;
+
+    /**
+     * Число зарезервированных подарков
+     */
+    @Column(name = "reserved_count", nullable = false)
+    private int reservedCount;
+
+    /**
+     * Суммарная цена всех подарков
+     */
+    @Column(name = "total_price", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalPrice;
+
+    /**
+     * Суммарная цена незарезервированных подарков
+     */
+    @Column(name = "unreserved_price", nullable = false, precision = 14, scale = 2)
+    private BigDecimal unreservedPrice;
+}
@@ -0,0 +1,72 @@
+package com.example.wishlist.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.cache.spi.TimestampsCache;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.jdbc.ReturningWork;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Изменение отдельных строк кэшируемой сущности через JDBC. Массовые JPQL и native запросы
+ * Hibernate сбрасывают регион сущности в кэше второго уровня целиком, здесь же блокируются только
+ * записи изменяемых строк — так же, как при обновлении управляемой сущности, — а результаты кэша
+ * запросов по ее таблице устаревают после завершения транзакции.
+ * <p>
+ * Сущности, уже загруженные в текущий контекст, запросами не обновляются.
+ */
+final class CachedRowUpdate {
+
+    private CachedRowUpdate() {
+    }
+
+    /**
+     * Выполнение запроса к одной строке сущности
+     * @param entityManager контекст текущей транзакции
+     * @param entityClass класс изменяемой сущности
+     * @param id идентификатор изменяемой строки
+     * @param work запрос к соединению текущей транзакции
+     * @return результат запроса
+     */
+    static <T> T execute(EntityManager entityManager, Class<?> entityClass, Object id, ReturningWork<T> work) {
+        lock(entityManager, entityClass, List.of(id));
+        return entityManager.unwrap(SessionImplementor.class).doReturningWork(work);
+    }
+
+    /**
+     * Блокировка записей строк в кэше до завершения текущей транзакции. Вызывается до фиксации
+     * изменения этих строк: параллельное чтение не положит в кэш строку, прочитанную до фиксации.
+     * @param entityManager контекст текущей транзакции
+     * @param entityClass класс изменяемой сущности
+     * @param ids идентификаторы изменяемых строк
+     */
+    static void lock(EntityManager entityManager, Class<?> entityClass, Collection<?> ids) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        SessionFactoryImplementor factory = session.getFactory();
+        EntityPersister persister = factory.getMappingMetamodel().getEntityDescriptor(entityClass);
+        String[] spaces = persister.getPropertySpaces();
+        TimestampsCache timestamps = factory.getCache().getTimestampsCache();
+
+        EntityDataAccess cache = persister.getCacheAccessStrategy();
+        Map<Object, SoftLock> locks = new HashMap<>();
+        if (cache != null) {
+            for (Object id : ids) {
+                Object key = cache.generateCacheKey(id, persister, factory, session.getTenantIdentifier());
+                locks.put(key, cache.lockItem(session, key, null));
+            }
+        }
+        timestamps.preInvalidate(spaces, session);
+        session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, completed) -> {
+            locks.forEach((key, lock) -> cache.unlockItem(completed, key, lock));
+            timestamps.invalidate(spaces, completed);
+        });
+    }
+}
@@ -1,24 +1,126 @@
 package com.example.wishlist.repository;
 
+import com.example.wishlist.dto.GiftResponse;
 import com.example.wishlist.model.Gift;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий для работы с подарками
  */
 @Repository
-public interface GiftRepository extends JpaRepository<Gift, UUID> {
+public interface GiftRepository extends JpaRepository<Gift, UUID>, GiftRepositoryCustom {
     
     /**
-     * Поиск всех подарков в списке желаний
+     * Поиск подарков в списке желаний, следующих за указанным id
      * @param wishListId идентификатор списка желаний
-     * @return список подарков
+     * @param after идентификатор, после которого начинается выборка
+     * @param limit максимальное число записей
+     * @return список подарков, упорядоченный по id
      */
-    List<Gift> findAllByWishListId(UUID wishListId);
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    @Query("select new com.example.wishlist.dto.GiftResponse(g.id, g.name, g.description, g.imageUrl, g.price, g.reserved, g.wishList.id, g.version) " +
+           "from Gift g where g.wishList.id = :wishListId and g.id > :after order by g.id")
+    List<GiftResponse> findAllByWishListId(@Param("wishListId") UUID wishListId, @Param("after") UUID after, Limit limit);
+
+    /**
+     * Первые подарки каждого из нескольких списков желаний одним запросом
+     * @param wishListIds идентификаторы списков желаний
+     * @param limit максимальное число подарков одного списка
+     * @return подарки, упорядоченные по id; из каждого списка не более limit первых по id
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    @Query("select new com.example.wishlist.dto.GiftResponse(g.id, g.name, g.description, g.imageUrl, g.price, g.reserved, g.wishListId, g.version) " +
+           "from (select f.id as id, f.name as name, f.description as description, f.imageUrl as imageUrl, " +
+           "f.price as price, f.reserved as reserved, f.wishList.id as wishListId, f.version as version, " +
+           "row_number() over (partition by f.wishList.id order by f.id) as position " +
+           "from Gift f where f.wishList.id in :wishListIds) g " +
+           "where g.position <= :limit order by g.id")
+    List<GiftResponse> findFirstByWishListIdIn(@Param("wishListIds") Collection<UUID> wishListIds, @Param("limit") int limit);
+
+    /**
+     * Поиск подарка по id без загрузки сущности
+     * @param id идентификатор подарка
+     * @return подарок, если найден
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    @Query("select new com.example.wishlist.dto.GiftResponse(g.id, g.name, g.description, g.imageUrl, g.price, g.reserved, g.wishList.id, g.version) " +
+           "from Gift g where g.id = :id")
+    Optional<GiftResponse> findResponseById(@Param("id") UUID id);
+
+    /**
+     * Версия подарка без загрузки остальных полей
+     * @param id идентификатор подарка
+     * @return версия, если подарок найден
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    @Query("select g.version from Gift g where g.id = :id")
+    Optional<Long> findVersionById(@Param("id") UUID id);
     
-    List<Gift> findByWishListId(UUID wishListId);
+    /**
+     * Полнотекстовый поиск по подаркам списков пользователя с сортировкой по релевантности
+     * @param ownerId идентификатор владельца списков
+     * @param query запрос в синтаксисе to_tsquery
+     * @param limit максимальное число записей
+     * @param offset число пропускаемых записей
+     * @return найденные подарки
+     */
+    @Query(value = "select g.id as \"id\", g.name as \"name\", g.description as \"description\", " +
+                   "g.image_url as \"imageUrl\", g.price as \"price\", g.is_reserved as \"reserved\", " +
+                   "g.wish_id as \"wishListId\", g.version as \"version\" " +
+                   "from gifts g join wishlists w on w.id = g.wish_id, to_tsquery('russian', :query) q " +
+                   "where w.user_id = :ownerId and g.search_vector @@ q " +
+                   "order by ts_rank(g.search_vector, q) desc, g.id limit :limit offset :offset",
+           nativeQuery = true)
+    List<GiftSearchView> searchByOwnerId(@Param("ownerId") UUID ownerId, @Param("query") String query,
+                                         @Param("limit") int limit, @Param("offset") int offset);
+
+    /**
+     * Полнотекстовый поиск по подаркам одного списка желаний с сортировкой по релевантности
+     * @param wishListId идентификатор списка желаний
+     * @param query запрос в синтаксисе to_tsquery
+     * @param limit максимальное число записей
+     * @param offset число пропускаемых записей
+     * @return найденные подарки
+     */
+    @Query(value = "select g.id as \"id\", g.name as \"name\", g.description as \"description\", " +
+                   "g.image_url as \"imageUrl\", g.price as \"price\", g.is_reserved as \"reserved\", " +
+                   "g.wish_id as \"wishListId\", g.version as \"version\" " +
+                   "from gifts g, to_tsquery('russian', :query) q " +
+                   "where g.wish_id = :wishListId and g.search_vector @@ q " +
+                   "order by ts_rank(g.search_vector, q) desc, g.id limit :limit offset :offset",
+           nativeQuery = true)
+    List<GiftSearchView> searchByWishListId(@Param("wishListId") UUID wishListId, @Param("query") String query,
+                                            @Param("limit") int limit, @Param("offset") int offset);
+
+    /**
+     * Потоковая выборка всех подарков из списков пользователя для выгрузки.
+     * Строки читаются курсором порциями по fetch size, сущности не загружаются.
+     * @param ownerId идентификатор владельца списков
+     * @return поток подарков, упорядоченный по списку желаний и id; должен быть закрыт
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.example.wishlist.dto.GiftResponse(g.id, g.name, g.description, g.imageUrl, g.price, g.reserved, g.wishList.id, g.version) " +
+           "from Gift g where g.wishList.owner.id = :ownerId order by g.wishList.id, g.id")
+    Stream<GiftResponse> streamAllByOwnerId(@Param("ownerId") UUID ownerId);
+
+    /**
+     * Поиск подарков списка желаний по набору идентификаторов
+     * @param wishListId идентификатор списка желаний
+     * @param ids идентификаторы подарков
+     * @return найденные подарки
+     */
+    List<Gift> findAllByWishListIdAndIdIn(UUID wishListId, Collection<UUID> ids);
 }
@@ -0,0 +1,19 @@
+package com.example.wishlist.repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Изменения подарков, которые выполняются одним запросом без загрузки сущности
+ */
+public interface GiftRepositoryCustom {
+
+    /**
+     * Установка или снятие резерва, если подарок находится в противоположном состоянии.
+     * Список желаний и цена возвращаются самим UPDATE (RETURNING), без повторного чтения строки.
+     * @param id идентификатор подарка
+     * @param reserved новое состояние резерва
+     * @return список и цена подарка; пусто, если подарок не найден или уже в требуемом состоянии
+     */
+    Optional<ReservedGift> updateReserved(UUID id, boolean reserved);
+}
@@ -0,0 +1,45 @@
+package com.example.wishlist.repository;
+
+import com.example.wishlist.model.Gift;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Реализация {@link GiftRepositoryCustom} через JDBC соединение текущей транзакции
+ */
+@RequiredArgsConstructor
+class GiftRepositoryCustomImpl implements GiftRepositoryCustom {
+
+    private static final String UPDATE_RESERVED =
+            "update gifts set is_reserved = ?, version = version + 1 where id = ? and is_reserved = ?";
+
+    /**
+     * Столбцы, возвращаемые UPDATE: драйвер PostgreSQL дописывает к запросу RETURNING
+     */
+    private static final String[] RETURNING = {"wish_id", "price"};
+
+    private final EntityManager entityManager;
+
+    @Override
+    public Optional<ReservedGift> updateReserved(UUID id, boolean reserved) {
+        return CachedRowUpdate.execute(entityManager, Gift.class, id, connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(UPDATE_RESERVED, RETURNING)) {
+                statement.setBoolean(1, reserved);
+                statement.setObject(2, id);
+                statement.setBoolean(3, !reserved);
+                if (statement.executeUpdate() == 0) {
+                    return Optional.empty();
+                }
+                try (ResultSet row = statement.getGeneratedKeys()) {
+                    row.next();
+                    return Optional.of(new ReservedGift(row.getObject(1, UUID.class), row.getBigDecimal(2)));
+                }
+            }
+        });
+    }
+}
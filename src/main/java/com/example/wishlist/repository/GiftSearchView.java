@@ -0,0 +1,26 @@
+package com.example.wishlist.repository;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Проекция подарка, найденного полнотекстовым поиском
+ */
+public interface GiftSearchView {
+
+    UUID getId();
+
+    String getName();
+
+    String getDescription();
+
+    String getImageUrl();
+
+    BigDecimal getPrice();
+
+    boolean isReserved();
+
+    UUID getWishListId();
+
+    long getVersion();
+}
@@ -0,0 +1,25 @@
+package com.example.wishlist.repository;
+
+import com.example.wishlist.model.ImportJobError;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Репозиторий ошибок строк импорта
+ */
+@Repository
+public interface ImportJobErrorRepository extends JpaRepository<ImportJobError, UUID> {
+
+    /**
+     * Ошибки задания, следующие за указанной строкой
+     * @param jobId идентификатор задания
+     * @param afterLine номер строки, после которой начинается выборка
+     * @param limit максимальное число записей
+     * @return ошибки, упорядоченные по номеру строки
+     */
+    List<ImportJobError> findByJobIdAndLineNumberGreaterThanOrderByLineNumber(UUID jobId, long afterLine, Limit limit);
+}
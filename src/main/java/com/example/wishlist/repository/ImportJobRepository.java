@@ -0,0 +1,64 @@
+package com.example.wishlist.repository;
+
+import com.example.wishlist.model.ImportJob;
+import com.example.wishlist.model.ImportStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Репозиторий заданий импорта
+ */
+@Repository
+public interface ImportJobRepository extends JpaRepository<ImportJob, UUID> {
+
+    /**
+     * Захват задания для загрузки данных. Задание захватывается, если оно еще не загружалось,
+     * было прервано или его загрузка не подавала признаков жизни с момента staleBefore.
+     * @param id идентификатор задания
+     * @param now текущее время
+     * @param staleBefore момент, раньше которого выполняющаяся загрузка считается брошенной
+     * @return 1, если задание захвачено, иначе 0
+     */
+    @Modifying
+    @Query("update ImportJob j set j.status = :running, j.message = null, j.updatedAt = :now " +
+           "where j.id = :id and (j.status in (:pending, :failed) or (j.status = :running and j.updatedAt < :staleBefore))")
+    int claim(@Param("id") UUID id, @Param("now") Instant now, @Param("staleBefore") Instant staleBefore,
+              @Param("pending") ImportStatus pending, @Param("failed") ImportStatus failed,
+              @Param("running") ImportStatus running);
+
+    /**
+     * Фиксация прогресса после записи порции, выполняется в транзакции порции
+     * @param id идентификатор задания
+     * @param lastLine номер последней обработанной строки
+     * @param currentWishListId список желаний, к которому относятся следующие подарки
+     * @param wishLists число созданных в порции списков
+     * @param gifts число созданных в порции подарков
+     * @param failed число строк порции с ошибками
+     * @param now текущее время
+     */
+    @Modifying
+    @Query("update ImportJob j set j.lastLine = :lastLine, j.currentWishListId = :currentWishListId, " +
+           "j.wishListsCreated = j.wishListsCreated + :wishLists, j.giftsCreated = j.giftsCreated + :gifts, " +
+           "j.failedLines = j.failedLines + :failed, j.updatedAt = :now where j.id = :id")
+    void advance(@Param("id") UUID id, @Param("lastLine") long lastLine, @Param("currentWishListId") UUID currentWishListId,
+                 @Param("wishLists") long wishLists, @Param("gifts") long gifts, @Param("failed") long failed,
+                 @Param("now") Instant now);
+
+    /**
+     * Завершение загрузки
+     * @param id идентификатор задания
+     * @param status итоговое состояние
+     * @param message причина прерывания или null
+     * @param now текущее время
+     */
+    @Modifying
+    @Query("update ImportJob j set j.status = :status, j.message = :message, j.updatedAt = :now where j.id = :id")
+    void finish(@Param("id") UUID id, @Param("status") ImportStatus status, @Param("message") String message,
+                @Param("now") Instant now);
+}
@@ -0,0 +1,23 @@
+package com.example.wishlist.repository;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Подарок, у которого изменился резерв: данные, возвращенные самим UPDATE
+ */
+@Value
+public class ReservedGift {
+
+    /**
+     * Идентификатор списка желаний
+     */
+    UUID wishListId;
+
+    /**
+     * Цена подарка
+     */
+    BigDecimal price;
+}
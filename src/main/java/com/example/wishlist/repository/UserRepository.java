@@ -1,9 +1,15 @@
 package com.example.wishlist.repository;
 
+import com.example.wishlist.dto.UserResponse;
 import com.example.wishlist.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -40,4 +46,24 @@ public interface UserRepository extends JpaRepository<User, UUID> {
      * @return true, если пользователь существует
      */
     boolean existsByEmail(String email);
+
+    /**
+     * Получение публичных данных пользователей, следующих за указанным id
+     * @param after идентификатор, после которого начинается выборка
+     * @param limit максимальное число записей
+     * @return список пользователей, упорядоченный по id
+     */
+    @Query("select new com.example.wishlist.dto.UserResponse(u.id, u.username) from User u " +
+           "where u.id > :after order by u.id")
+    List<UserResponse> findAllUsers(@Param("after") UUID after, Limit limit);
+
+    /**
+     * Обновление хэша пароля пользователя
+     * @param username имя пользователя
+     * @param password новый хэш пароля
+     * @return число обновленных записей
+     */
+    @Modifying
+    @Query("update User u set u.password = :password where u.username = :username")
+    int updatePassword(@Param("username") String username, @Param("password") String password);
 }
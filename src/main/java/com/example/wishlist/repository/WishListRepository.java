@@ -1,24 +1,68 @@
 package com.example.wishlist.repository;
 
+import com.example.wishlist.dto.WishListExportRow;
 import com.example.wishlist.model.WishList;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий для работы со списками желаний
  */
 @Repository
-public interface WishListRepository extends JpaRepository<WishList, UUID> {
+public interface WishListRepository extends JpaRepository<WishList, UUID>, WishListRepositoryCustom {
     
     /**
-     * Поиск всех списков желаний пользователя
+     * Поиск списков желаний пользователя, следующих за указанным id
      * @param ownerId идентификатор владельца
-     * @return список желаний
+     * @param after идентификатор, после которого начинается выборка
+     * @param limit максимальное число записей
+     * @return список желаний, упорядоченный по id
      */
-    List<WishList> findAllByOwnerId(UUID ownerId);
-    
-    List<WishList> findByOwnerId(UUID ownerId);
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    @Query("select w.id as id, w.title as title, w.description as description, w.version as version, " +
+           "o.id as ownerId, o.username as ownerUsername " +
+           "from WishList w join w.owner o where o.id = :ownerId and w.id > :after order by w.id")
+    List<WishListView> findAllByOwnerId(@Param("ownerId") UUID ownerId, @Param("after") UUID after, Limit limit);
+
+    /**
+     * Потоковая выборка всех списков желаний пользователя для выгрузки.
+     * Строки читаются курсором порциями по fetch size, сущности не загружаются.
+     * @param ownerId идентификатор владельца
+     * @return поток списков желаний, упорядоченный по id; должен быть закрыт
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.example.wishlist.dto.WishListExportRow(w.id, w.title, w.description, w.version) " +
+           "from WishList w where w.owner.id = :ownerId order by w.id")
+    Stream<WishListExportRow> streamAllByOwnerId(@Param("ownerId") UUID ownerId);
+
+    /**
+     * Поиск списка желаний по id без загрузки сущности
+     * @param id идентификатор списка желаний
+     * @return список желаний, если найден
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    @Query("select w.id as id, w.title as title, w.description as description, w.version as version, " +
+           "o.id as ownerId, o.username as ownerUsername " +
+           "from WishList w join w.owner o where w.id = :id")
+    Optional<WishListView> findViewById(@Param("id") UUID id);
+
+    /**
+     * Версия списка желаний без загрузки остальных полей
+     * @param id идентификатор списка желаний
+     * @return версия, если список найден
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    @Query("select w.version from WishList w where w.id = :id")
+    Optional<Long> findVersionById(@Param("id") UUID id);
 }
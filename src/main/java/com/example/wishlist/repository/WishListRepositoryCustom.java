@@ -0,0 +1,37 @@
+package com.example.wishlist.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Изменения списков желаний, которые выполняются одним запросом без загрузки сущности
+ */
+public interface WishListRepositoryCustom {
+
+    /**
+     * Отметка об изменении подарков списка: атомарно увеличивает версию и время изменения подарков.
+     * Строка списка остается заблокированной до конца транзакции.
+     * @param id идентификатор списка желаний
+     * @return число обновленных записей: 0, если список не найден
+     */
+    int markGiftsChanged(UUID id);
+
+    /**
+     * Блокировка строк списков желаний до конца транзакции, в порядке id. Изменения подарков
+     * блокируют строку своего списка тем же образом (см. {@link #markGiftsChanged(UUID)}),
+     * поэтому работа под этой блокировкой не пересекается с ними.
+     * @param ids идентификаторы списков желаний
+     * @return идентификаторы заблокированных списков; удаленные списки пропускаются
+     */
+    List<UUID> lockAllById(Collection<UUID> ids);
+
+    /**
+     * Удаление списка желаний вместе с подарками и сводными показателями. Строка списка
+     * блокируется первой, поэтому параллельные изменения подарков списка ждут удаления,
+     * а параллельное удаление того же списка не находит его.
+     * @param id идентификатор списка желаний
+     * @return true, если список удален; false, если его уже нет
+     */
+    boolean deleteWithGifts(UUID id);
+}
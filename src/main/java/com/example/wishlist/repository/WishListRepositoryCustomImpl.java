@@ -0,0 +1,111 @@
+package com.example.wishlist.repository;
+
+import com.example.wishlist.model.Gift;
+import com.example.wishlist.model.WishList;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionImplementor;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Реализация {@link WishListRepositoryCustom} через JDBC соединение текущей транзакции
+ */
+@RequiredArgsConstructor
+class WishListRepositoryCustomImpl implements WishListRepositoryCustom {
+
+    private static final String MARK_GIFTS_CHANGED =
+            "update wishlists set version = version + 1, gifts_changed_at = ? where id = ?";
+
+    private static final String LOCK = "select id from wishlists where id = ? for update";
+    private static final String LOCK_ALL = "select id from wishlists where id in (%s) order by id for update";
+    private static final String SELECT_GIFT_IDS = "select id from gifts where wish_id = ?";
+    private static final String DELETE_GIFTS = "delete from gifts where wish_id = ?";
+    private static final String DELETE_STATS = "delete from wishlist_stats where wish_id = ?";
+    private static final String DELETE = "delete from wishlists where id = ?";
+
+    private static final String GIFTS_ROLE = WishList.class.getName() + ".gifts";
+
+    private final EntityManager entityManager;
+
+    @Override
+    public int markGiftsChanged(UUID id) {
+        return CachedRowUpdate.execute(entityManager, WishList.class, id, connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(MARK_GIFTS_CHANGED)) {
+                statement.setObject(1, OffsetDateTime.now(ZoneOffset.UTC));
+                statement.setObject(2, id);
+                return statement.executeUpdate();
+            }
+        });
+    }
+
+    @Override
+    public List<UUID> lockAllById(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String sql = LOCK_ALL.formatted(String.join(", ", Collections.nCopies(ids.size(), "?")));
+        return entityManager.unwrap(SessionImplementor.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                int index = 1;
+                for (UUID id : ids) {
+                    statement.setObject(index++, id);
+                }
+                List<UUID> locked = new ArrayList<>(ids.size());
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        locked.add(rows.getObject(1, UUID.class));
+                    }
+                }
+                return locked;
+            }
+        });
+    }
+
+    @Override
+    public boolean deleteWithGifts(UUID id) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        boolean deleted = session.doReturningWork(connection -> {
+            try (PreparedStatement lock = connection.prepareStatement(LOCK)) {
+                lock.setObject(1, id);
+                try (ResultSet row = lock.executeQuery()) {
+                    if (!row.next()) {
+                        return false;
+                    }
+                }
+            }
+            // пока строка списка заблокирована, новые подарки в него не добавляются,
+            // поэтому выбранные идентификаторы совпадают с удаляемыми строками
+            List<UUID> giftIds = new ArrayList<>();
+            try (PreparedStatement select = connection.prepareStatement(SELECT_GIFT_IDS)) {
+                select.setObject(1, id);
+                try (ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        giftIds.add(rows.getObject(1, UUID.class));
+                    }
+                }
+            }
+            CachedRowUpdate.lock(entityManager, Gift.class, giftIds);
+            CachedRowUpdate.lock(entityManager, WishList.class, List.of(id));
+            for (String sql : List.of(DELETE_GIFTS, DELETE_STATS, DELETE)) {
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    statement.setObject(1, id);
+                    statement.executeUpdate();
+                }
+            }
+            return true;
+        });
+        if (deleted) {
+            session.getFactory().getCache().evictCollectionData(GIFTS_ROLE, id);
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.wishlist.repository;
+
+import com.example.wishlist.model.WishListStats;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Репозиторий сводных показателей списков желаний
+ */
+@Repository
+public interface WishListStatsRepository extends JpaRepository<WishListStats, UUID> {
+
+    /**
+     * Создание нулевых показателей для нового списка желаний
+     * @param wishListId идентификатор списка желаний
+     */
+    @Modifying
+    @Query("insert into WishListStats (wishListId, giftCount, reservedCount, totalPrice, unreservedPrice) " +
+           "values (:wishListId, 0, 0, 0, 0)")
+    void createEmpty(@Param("wishListId") UUID wishListId);
+
+    /**
+     * Атомарное приращение показателей списка желаний
+     * @param wishListId идентификатор списка желаний
+     * @param gifts изменение числа подарков
+     * @param reserved изменение числа зарезервированных подарков
+     * @param totalPrice изменение суммарной цены
+     * @param unreservedPrice изменение суммарной цены незарезервированных подарков
+     * @return число обновленных записей
+     */
+    @Modifying
+    @Query("update WishListStats s set s.giftCount = s.giftCount + :gifts, " +
+           "s.reservedCount = s.reservedCount + :reserved, " +
+           "s.totalPrice = s.totalPrice + :totalPrice, " +
+           "s.unreservedPrice = s.unreservedPrice + :unreservedPrice " +
+           "where s.wishListId = :wishListId")
+    int applyDelta(@Param("wishListId") UUID wishListId, @Param("gifts") int gifts, @Param("reserved") int reserved,
+                   @Param("totalPrice") BigDecimal totalPrice, @Param("unreservedPrice") BigDecimal unreservedPrice);
+
+    /**
+     * Показатели нескольких списков желаний
+     * @param wishListIds идентификаторы списков желаний
+     * @return найденные показатели
+     */
+    List<WishListStats> findAllByWishListIdIn(Collection<UUID> wishListIds);
+
+    /**
+     * Создание нулевых показателей для списков желаний, у которых их нет
+     * @return число созданных записей
+     */
+    @Modifying
+    @Query("insert into WishListStats (wishListId, giftCount, reservedCount, totalPrice, unreservedPrice) " +
+           "select w.id, 0, 0, 0, 0 from WishList w " +
+           "where not exists (select 1 from WishListStats s where s.wishListId = w.id)")
+    int createMissing();
+
+    /**
+     * Идентификаторы показателей, следующие за указанным, для пересчета порциями
+     * @param after идентификатор, после которого начинается выборка
+     * @param limit максимальное число записей
+     * @return идентификаторы списков желаний, упорядоченные по возрастанию
+     */
+    @Query("select s.wishListId from WishListStats s where s.wishListId > :after order by s.wishListId")
+    List<UUID> findIdsAfter(@Param("after") UUID after, Limit limit);
+
+    /**
+     * Пересчет показателей по фактическим данным подарков
+     * @param wishListIds идентификаторы списков желаний
+     * @return число обновленных записей
+     */
+    @Modifying
+    @Query("update WishListStats s set " +
+           "s.giftCount = (select count(g) from Gift g where g.wishList.id = s.wishListId), " +
+           "s.reservedCount = (select count(g) from Gift g where g.wishList.id = s.wishListId and g.reserved = true), " +
+           "s.totalPrice = (select coalesce(sum(g.price), 0) from Gift g where g.wishList.id = s.wishListId), " +
+           "s.unreservedPrice = (select coalesce(sum(g.price), 0) from Gift g " +
+           "where g.wishList.id = s.wishListId and g.reserved = false) " +
+           "where s.wishListId in :wishListIds")
+    int rebuild(@Param("wishListIds") Collection<UUID> wishListIds);
+}
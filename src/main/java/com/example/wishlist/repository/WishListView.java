@@ -0,0 +1,21 @@
+package com.example.wishlist.repository;
+
+import java.util.UUID;
+
+/**
+ * Проекция списка желаний с краткими данными владельца, без подарков
+ */
+public interface WishListView {
+
+    UUID getId();
+
+    String getTitle();
+
+    String getDescription();
+
+    UUID getOwnerId();
+
+    String getOwnerUsername();
+
+    long getVersion();
+}
@@ -0,0 +1,136 @@
+package com.example.wishlist.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Общая часть фильтров ограничения частоты запросов к API: корзины маркеров в памяти экземпляра,
+ * заголовки RateLimit-* и ответ 429. Какой корзиной платит запрос, решает наследник.
+ */
+abstract class AbstractRateLimitFilter extends OncePerRequestFilter {
+
+    static final String AUTH_PREFIX = "/api/auth/";
+
+    private static final String API_PREFIX = "/api/";
+
+    private static final String RATE_LIMIT_LIMIT = "RateLimit-Limit";
+    private static final String RATE_LIMIT_REMAINING = "RateLimit-Remaining";
+    private static final String RATE_LIMIT_RESET = "RateLimit-Reset";
+
+    private final boolean enabled;
+    private final Cache<String, TokenBucket> buckets;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * @param enabled ограничение включено
+     * @param maxClients наибольшее число хранимых корзин
+     * @param idleTimeout время, после которого простаивающая корзина удаляется
+     * @param budgets бюджеты всех корзин фильтра
+     */
+    AbstractRateLimitFilter(boolean enabled, long maxClients, Duration idleTimeout, TokenBucket.Budget... budgets) {
+        this.enabled = enabled;
+        // корзина, простоявшая дольше периода пополнения, полна и равна новой, поэтому ее можно удалить
+        long longestPeriod = 0;
+        for (TokenBucket.Budget budget : budgets) {
+            longestPeriod = Math.max(longestPeriod, budget.getPeriodNanos());
+        }
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Math.max(idleTimeout.toNanos(), longestPeriod), TimeUnit.NANOSECONDS)
+                .build();
+    }
+
+    /**
+     * Корзина, из которой платит запрос
+     * @param request запрос к API
+     * @return ключ и бюджет корзины
+     */
+    protected abstract Limit limit(HttpServletRequest request);
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !path(request).startsWith(API_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Limit limit = limit(request);
+        TokenBucket.Budget budget = limit.getBudget();
+
+        long now = System.nanoTime();
+        TokenBucket.Probe probe = buckets.get(limit.getKey(), k -> new TokenBucket(now)).tryConsume(budget, now);
+        response.setHeader(RATE_LIMIT_LIMIT, String.valueOf(budget.getCapacity()));
+        response.setHeader(RATE_LIMIT_REMAINING, String.valueOf(probe.getRemaining()));
+        response.setHeader(RATE_LIMIT_RESET, String.valueOf(toSeconds(probe.getResetNanos())));
+        if (!probe.isAllowed()) {
+            reject(response, toSeconds(probe.getRetryAfterNanos()));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Адрес клиента. За обратным прокси он берется из X-Forwarded-For только при настроенном
+     * server.forward-headers-strategy, иначе все клиенты делили бы адрес прокси.
+     */
+    static String ip(HttpServletRequest request) {
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static long toSeconds(long nanos) {
+        return Math.max(1, (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private void reject(HttpServletResponse response, long retryAfterSeconds) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Too many requests");
+        error.put("message", "Слишком много запросов, повторите попытку позже");
+
+        response.getWriter().write(objectMapper.writeValueAsString(error));
+    }
+
+    /**
+     * Корзина запроса
+     */
+    @Value
+    static class Limit {
+
+        /**
+         * Ключ корзины
+         */
+        String key;
+
+        /**
+         * Объем и скорость пополнения корзины
+         */
+        TokenBucket.Budget budget;
+    }
+}
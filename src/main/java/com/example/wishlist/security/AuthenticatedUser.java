@@ -0,0 +1,86 @@
+package com.example.wishlist.security;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Авторизованный пользователь. Для запросов с JWT токеном восстанавливается из claims
+ * без обращения к базе данных, поэтому пароль в этом случае отсутствует.
+ */
+@Getter
+public class AuthenticatedUser implements UserDetails {
+
+    /**
+     * Идентификатор пользователя
+     */
+    private final UUID id;
+
+    /**
+     * Имя пользователя (логин)
+     */
+    private final String username;
+
+    /**
+     * Хэшированный пароль, известен только при загрузке пользователя из базы данных
+     */
+    private final String password;
+
+    /**
+     * Роли пользователя
+     */
+    private final List<GrantedAuthority> authorities;
+
+    public AuthenticatedUser(UUID id, String username, String password, Collection<String> roles) {
+        this.id = id;
+        this.username = username;
+        this.password = password;
+        this.authorities = roles.stream()
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role))
+                .toList();
+    }
+
+    /**
+     * Восстановление пользователя из проверенного JWT токена
+     * @param token данные токена
+     * @return авторизованный пользователь
+     */
+    public static AuthenticatedUser fromToken(VerifiedToken token) {
+        return new AuthenticatedUser(token.getUserId(), token.getSubject(), null, token.getRoles());
+    }
+
+    /**
+     * Роли пользователя в виде строк для записи в токен
+     * @return список ролей
+     */
+    public List<String> getRoles() {
+        return authorities.stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
@@ -1,28 +1,93 @@
 package com.example.wishlist.security;
 
+import com.example.wishlist.config.CoalescingCache;
 import com.example.wishlist.model.User;
 import com.example.wishlist.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Загрузка пользователей для Spring Security с кэшированием в памяти процесса
+ */
 @Service
-@RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
+    /**
+     * Кэш пользователей по имени пользователя
+     */
+    private final CoalescingCache<String, AuthenticatedUser> userCache;
+
+    public CustomUserDetailsService(UserRepository userRepository,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${security.user-cache.max-size:10000}") long maxSize,
+                                    @Value("${security.user-cache.ttl:10m}") Duration ttl) {
+        this.userRepository = userRepository;
+        // попадания, промахи и вытеснения публикуются в метриках cache_* с тегом cache=user-details
+        this.userCache = new CoalescingCache<>(CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .<String, AuthenticatedUser>buildAsync(), "user-details"));
+    }
+
+    /**
+     * Загрузка пользователя. При промахе запрос к базе выполняется в вызывающем потоке,
+     * параллельные запросы того же имени ждут одну загрузку.
+     */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        return userCache.get(username, this::loadFromDatabase);
+    }
+
+    private AuthenticatedUser loadFromDatabase(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
-        
-        return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getUsername())
-                .password(user.getPassword())
-                .roles("USER")
-                .build();
+
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getPassword(), List.of("ROLE_USER"));
+    }
+
+    /**
+     * Сохранение пересчитанного хэша пароля, вызывается при входе, если хэш
+     * создан с устаревшей стоимостью BCrypt
+     * @param user пользователь
+     * @param newPassword новый хэш пароля
+     * @return пользователь с обновленным хэшем
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePassword(user.getUsername(), newPassword);
+        evict(user.getUsername());
+
+        UUID id = user instanceof AuthenticatedUser authenticatedUser ? authenticatedUser.getId() : null;
+        List<String> roles = user.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+        return new AuthenticatedUser(id, user.getUsername(), newPassword, roles);
+    }
+
+    /**
+     * Удаление пользователя из кэша. Должно вызываться при любом изменении имени или пароля.
+     * Внутри транзакции запись удаляется повторно после коммита, чтобы параллельный запрос
+     * не успел закэшировать устаревшие данные.
+     * @param username имя пользователя
+     */
+    public void evict(String username) {
+        userCache.evict(username);
     }
 }
@@ -0,0 +1,48 @@
+package com.example.wishlist.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Ограничение частоты запросов к API по IP до разбора JWT. Проверка подписи токена стоит
+ * дороже выдачи ответа 429, поэтому запросы с поддельными токенами должны отсекаться раньше,
+ * чем дойдут до {@link JwtAuthenticationFilter}. Вход и регистрация расходуют отдельную,
+ * более строгую корзину.
+ */
+@Component
+public class IpRateLimitFilter extends AbstractRateLimitFilter {
+
+    private final TokenBucket.Budget authBudget;
+    private final TokenBucket.Budget ipBudget;
+
+    @Autowired
+    public IpRateLimitFilter(@Value("${security.rate-limit.enabled:true}") boolean enabled,
+                             @Value("${security.rate-limit.auth.capacity:10}") long authCapacity,
+                             @Value("${security.rate-limit.auth.period:1m}") Duration authPeriod,
+                             @Value("${security.rate-limit.ip.capacity:600}") long ipCapacity,
+                             @Value("${security.rate-limit.ip.period:1m}") Duration ipPeriod,
+                             @Value("${security.rate-limit.max-clients:100000}") long maxClients,
+                             @Value("${security.rate-limit.idle-timeout:10m}") Duration idleTimeout) {
+        this(enabled, TokenBucket.Budget.of(authCapacity, authPeriod), TokenBucket.Budget.of(ipCapacity, ipPeriod),
+                maxClients, idleTimeout);
+    }
+
+    private IpRateLimitFilter(boolean enabled, TokenBucket.Budget authBudget, TokenBucket.Budget ipBudget,
+                              long maxClients, Duration idleTimeout) {
+        super(enabled, maxClients, idleTimeout, authBudget, ipBudget);
+        this.authBudget = authBudget;
+        this.ipBudget = ipBudget;
+    }
+
+    @Override
+    protected Limit limit(HttpServletRequest request) {
+        if (path(request).startsWith(AUTH_PREFIX)) {
+            return new Limit("auth:" + ip(request), authBudget);
+        }
+        return new Limit("all:" + ip(request), ipBudget);
+    }
+}
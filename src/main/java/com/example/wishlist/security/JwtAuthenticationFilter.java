@@ -19,6 +19,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Фильтр для аутентификации по JWT токену
@@ -39,9 +40,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String jwt = getJwtFromRequest(request);
 
             if (StringUtils.hasText(jwt)) {
-                if (tokenProvider.validateToken(jwt)) {
-                    String username = tokenProvider.getUsernameFromJWT(jwt);
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                Optional<VerifiedToken> verifiedToken = tokenProvider.verifyToken(jwt);
+                if (verifiedToken.isPresent()) {
+                    UserDetails userDetails = resolveUser(verifiedToken.get());
                     
                     UsernamePasswordAuthenticationToken authentication = 
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
@@ -61,6 +62,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
     }
 
+    /**
+     * Токены с идентификатором и ролями пользователя не требуют обращения к базе данных,
+     * для токенов старого формата пользователь загружается по имени
+     */
+    private UserDetails resolveUser(VerifiedToken token) {
+        if (token.isSelfContained()) {
+            return AuthenticatedUser.fromToken(token);
+        }
+        return userDetailsService.loadUserByUsername(token.getSubject());
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -1,27 +1,94 @@
 package com.example.wishlist.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Компонент для работы с JWT токенами
  */
 @Component
+@RequiredArgsConstructor
 public class JwtTokenProvider {
 
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String ROLES_CLAIM = "roles";
+    private static final String VALIDATION_TIMER = "jwt.validation";
+
+    private final MeterRegistry meterRegistry;
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
     @Value("${jwt.expiration}")
     private int jwtExpirationInMs;
 
-    private Key getSigningKey() {
+    @Value("${jwt.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    @Value("${jwt.cache.ttl:5m}")
+    private Duration cacheTtl;
+
+    private Key signingKey;
+    private JwtParser jwtParser;
+
+    /**
+     * Кэш уже проверенных токенов: ключ - SHA-256 от токена
+     */
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    /**
+     * Время проверки токена по исходу: из кэша, с разбором и проверкой подписи, отклонен
+     */
+    private Timer cachedValidations;
+    private Timer parsedValidations;
+    private Timer rejectedValidations;
+
+    @PostConstruct
+    void init() {
+        signingKey = buildSigningKey();
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new TokenExpiry())
+                .build();
+        cachedValidations = validationTimer("cached");
+        parsedValidations = validationTimer("parsed");
+        rejectedValidations = validationTimer("rejected");
+    }
+
+    private Timer validationTimer(String result) {
+        return Timer.builder(VALIDATION_TIMER)
+                .description("Проверка JWT токена")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private Key buildSigningKey() {
         byte[] keyBytes = jwtSecret.getBytes();
         // Ensure the key is at least 256 bits (32 bytes) long by padding if necessary
         if (keyBytes.length < 32) {
@@ -46,43 +113,95 @@ public class JwtTokenProvider {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
 
-        return Jwts.builder()
-                .setSubject(username)
+        JwtBuilder builder = Jwts.builder()
+                .setSubject(username);
+        if (authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            builder.claim(USER_ID_CLAIM, user.getId().toString())
+                    .claim(ROLES_CLAIM, user.getRoles());
+        }
+
+        return builder
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
     /**
-     * Получение имени пользователя из токена
+     * Проверка подписи и срока действия токена за один разбор.
+     * Повторная проверка того же токена обслуживается из кэша до истечения его срока действия.
      * @param token JWT токен
-     * @return имя пользователя
+     * @return данные токена или пустой результат, если токен невалиден
      */
-    public String getUsernameFromJWT(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        return claims.getSubject();
+    public Optional<VerifiedToken> verifyToken(String token) {
+        long start = System.nanoTime();
+        String digest = digest(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            cachedValidations.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return Optional.of(cached);
+        }
+
+        try {
+            Claims claims = jwtParser.parseClaimsJws(token).getBody();
+            VerifiedToken verified = new VerifiedToken(
+                    claims.getSubject(), getUserId(claims), getRoles(claims), claims.getExpiration());
+            verifiedTokens.put(digest, verified);
+            parsedValidations.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return Optional.of(verified);
+        } catch (JwtException | IllegalArgumentException ex) {
+            rejectedValidations.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return Optional.empty();
+        }
+    }
+
+    private static UUID getUserId(Claims claims) {
+        String userId = claims.get(USER_ID_CLAIM, String.class);
+        return userId != null ? UUID.fromString(userId) : null;
+    }
+
+    private static List<String> getRoles(Claims claims) {
+        Object roles = claims.get(ROLES_CLAIM);
+        if (!(roles instanceof Collection<?> values)) {
+            return List.of();
+        }
+        return values.stream()
+                .map(String::valueOf)
+                .toList();
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
     }
 
     /**
-     * Валидация JWT токена
-     * @param authToken JWT токен
-     * @return true, если токен валиден
+     * Запись кэша живет не дольше настроенного TTL и не дольше срока действия самого токена
      */
-    public boolean validateToken(String authToken) {
-        try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(authToken);
-            return true;
-        } catch (JwtException ex) {
-            return false;
+    private class TokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+            long ttl = cacheTtl.toNanos();
+            if (token.getExpiration() == null) {
+                return ttl;
+            }
+            long untilExpiration = Duration.ofMillis(token.getExpiration().getTime() - System.currentTimeMillis()).toNanos();
+            return Math.max(0, Math.min(ttl, untilExpiration));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
         }
     }
 }
@@ -0,0 +1,72 @@
+package com.example.wishlist.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Ограничение частоты запросов к API по пользователю из JWT, а без токена — по IP;
+ * чтение и изменение данных расходуют отдельные корзины. Фильтр стоит после
+ * {@link JwtAuthenticationFilter}, чтобы пользователь был уже известен. Общий лимит по IP,
+ * а также вход и регистрация проверяются раньше в {@link IpRateLimitFilter}.
+ */
+@Component
+public class RateLimitFilter extends AbstractRateLimitFilter {
+
+    private final TokenBucket.Budget readBudget;
+    private final TokenBucket.Budget writeBudget;
+
+    @Autowired
+    public RateLimitFilter(@Value("${security.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${security.rate-limit.read.capacity:300}") long readCapacity,
+                           @Value("${security.rate-limit.read.period:1m}") Duration readPeriod,
+                           @Value("${security.rate-limit.write.capacity:60}") long writeCapacity,
+                           @Value("${security.rate-limit.write.period:1m}") Duration writePeriod,
+                           @Value("${security.rate-limit.max-clients:100000}") long maxClients,
+                           @Value("${security.rate-limit.idle-timeout:10m}") Duration idleTimeout) {
+        this(enabled, TokenBucket.Budget.of(readCapacity, readPeriod), TokenBucket.Budget.of(writeCapacity, writePeriod),
+                maxClients, idleTimeout);
+    }
+
+    private RateLimitFilter(boolean enabled, TokenBucket.Budget readBudget, TokenBucket.Budget writeBudget,
+                            long maxClients, Duration idleTimeout) {
+        super(enabled, maxClients, idleTimeout, readBudget, writeBudget);
+        this.readBudget = readBudget;
+        this.writeBudget = writeBudget;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return super.shouldNotFilter(request) || path(request).startsWith(AUTH_PREFIX);
+    }
+
+    @Override
+    protected Limit limit(HttpServletRequest request) {
+        if (isRead(request)) {
+            return new Limit("read:" + client(request), readBudget);
+        }
+        return new Limit("write:" + client(request), writeBudget);
+    }
+
+    /**
+     * Клиент, которому принадлежит корзина: пользователь из токена или адрес запроса
+     */
+    private static String client(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()) {
+            return "user:" + authentication.getName();
+        }
+        return ip(request);
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        String method = request.getMethod();
+        return HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method) || HttpMethod.OPTIONS.matches(method);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.wishlist.security;
+
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Корзина маркеров одного клиента без блокировок. Вместо числа маркеров хранится момент,
+ * когда корзина снова станет полной (GCRA — эквивалентная запись корзины маркеров):
+ * списание маркера сдвигает этот момент на интервал пополнения одной операцией CAS.
+ */
+final class TokenBucket {
+
+    private final AtomicLong fullAt;
+
+    TokenBucket(long nowNanos) {
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Попытка списать один маркер
+     * @param budget объем и скорость пополнения корзины
+     * @param nowNanos текущее время по {@link System#nanoTime()}
+     * @return результат списания
+     */
+    Probe tryConsume(Budget budget, long nowNanos) {
+        while (true) {
+            long current = fullAt.get();
+            long base = current - nowNanos > 0 ? current : nowNanos;
+            long next = base + budget.getIntervalNanos();
+            long debt = next - nowNanos;
+            if (debt > budget.getPeriodNanos()) {
+                return new Probe(false, 0, debt - budget.getPeriodNanos(), base - nowNanos);
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return new Probe(true, (budget.getPeriodNanos() - debt) / budget.getIntervalNanos(), 0, debt);
+            }
+        }
+    }
+
+    /**
+     * Объем корзины и время ее полного пополнения
+     */
+    @Value
+    static class Budget {
+
+        /**
+         * Число запросов, доступных сразу
+         */
+        long capacity;
+
+        /**
+         * Время пополнения пустой корзины до полной
+         */
+        long periodNanos;
+
+        /**
+         * Время пополнения одного маркера
+         */
+        long intervalNanos;
+
+        static Budget of(long capacity, Duration period) {
+            if (capacity < 1 || period.isNegative() || period.isZero()) {
+                throw new IllegalArgumentException("Rate limit capacity and period must be positive");
+            }
+            long interval = Math.max(1, period.toNanos() / capacity);
+            return new Budget(capacity, interval * capacity, interval);
+        }
+    }
+
+    /**
+     * Результат списания маркера
+     */
+    @Value
+    static class Probe {
+
+        /**
+         * Маркер списан, запрос можно выполнять
+         */
+        boolean allowed;
+
+        /**
+         * Маркеров осталось после запроса
+         */
+        long remaining;
+
+        /**
+         * Через сколько наносекунд появится маркер для отклоненного запроса
+         */
+        long retryAfterNanos;
+
+        /**
+         * Через сколько наносекунд корзина снова станет полной
+         */
+        long resetNanos;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.wishlist.security;
+
+import lombok.Value;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Данные JWT токена, прошедшего проверку подписи и срока действия
+ */
+@Value
+public class VerifiedToken {
+
+    /**
+     * Имя пользователя (subject токена)
+     */
+    String subject;
+
+    /**
+     * Идентификатор пользователя, отсутствует в токенах, выданных до его добавления в claims
+     */
+    UUID userId;
+
+    /**
+     * Роли пользователя
+     */
+    List<String> roles;
+
+    /**
+     * Момент истечения срока действия токена
+     */
+    Date expiration;
+
+    /**
+     * Проверка, что токен содержит все данные для аутентификации без обращения к базе данных
+     * @return true, если токен самодостаточен
+     */
+    public boolean isSelfContained() {
+        return userId != null && !roles.isEmpty();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.wishlist.service;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Построчное чтение с ограничением длины строки. В отличие от {@link java.io.BufferedReader#readLine()}
+ * строка длиннее предела не накапливается в памяти: сохраняется только ее начало, остаток
+ * пропускается до перевода строки. Переводом строки считаются \n, \r и \r\n.
+ */
+final class BoundedLineReader {
+
+    private final Reader reader;
+    private final int maxLength;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder line = new StringBuilder();
+    private int position;
+    private int limit;
+    private boolean skipLineFeed;
+    private boolean tooLong;
+
+    /**
+     * @param reader источник символов
+     * @param maxLength максимальная длина строки в символах
+     */
+    BoundedLineReader(Reader reader, int maxLength) {
+        this.reader = reader;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Чтение следующей строки
+     * @return строка без перевода строки, для слишком длинной строки — ее первые maxLength символов;
+     * null в конце потока
+     */
+    String readLine() throws IOException {
+        line.setLength(0);
+        tooLong = false;
+        boolean started = false;
+        while (true) {
+            if (position == limit && !fill()) {
+                return started ? line.toString() : null;
+            }
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (buffer[position] == '\n') {
+                    position++;
+                    continue;
+                }
+            }
+            started = true;
+            int start = position;
+            while (position < limit && buffer[position] != '\n' && buffer[position] != '\r') {
+                position++;
+            }
+            append(start, position);
+            if (position < limit) {
+                skipLineFeed = buffer[position] == '\r';
+                position++;
+                return line.toString();
+            }
+        }
+    }
+
+    /**
+     * @return последняя прочитанная строка длиннее maxLength и обрезана
+     */
+    boolean isLineTooLong() {
+        return tooLong;
+    }
+
+    private void append(int start, int end) {
+        int room = maxLength - line.length();
+        if (end - start > room) {
+            tooLong = true;
+            line.append(buffer, start, room);
+        } else {
+            line.append(buffer, start, end - start);
+        }
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer, 0, buffer.length);
+        position = 0;
+        limit = Math.max(read, 0);
+        return read > 0;
+    }
+}
@@ -1,30 +1,73 @@
 package com.example.wishlist.service;
 
+import com.example.wishlist.dto.CursorPage;
+import com.example.wishlist.dto.GiftBatchItemResult;
+import com.example.wishlist.dto.GiftBatchItemResult.Operation;
+import com.example.wishlist.dto.GiftBatchItemResult.Status;
+import com.example.wishlist.dto.GiftBatchRequest;
 import com.example.wishlist.dto.GiftDto;
+import com.example.wishlist.dto.GiftResponse;
+import com.example.wishlist.dto.GiftUpdateDto;
+import com.example.wishlist.exception.ConflictException;
+import com.example.wishlist.exception.PreconditionFailedException;
 import com.example.wishlist.model.Gift;
 import com.example.wishlist.model.WishList;
 import com.example.wishlist.repository.GiftRepository;
+import com.example.wishlist.repository.GiftSearchView;
+import com.example.wishlist.repository.ReservedGift;
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * Сервис для работы с подарками
  */
 @Service
 @RequiredArgsConstructor
+@Timed("wishlist.service")
 public class GiftService {
     
     private static final Logger log = LoggerFactory.getLogger(GiftService.class);
+
+    /**
+     * Максимальное смещение в выдаче поиска: глубже релевантность уже не помогает,
+     * а сортировка всех совпадений становится дорогой
+     */
+    private static final int MAX_SEARCH_OFFSET = 1000;
+
+    /**
+     * Максимальное число слов в поисковом запросе
+     */
+    private static final int MAX_SEARCH_TERMS = 8;
+
+    private static final Pattern SEARCH_TERM_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
     
     private final GiftRepository giftRepository;
     private final WishListService wishListService;
+    private final Validator validator;
 
     /**
      * Создание нового подарка
@@ -34,7 +77,7 @@ public class GiftService {
      * @return созданный подарок
      */
     @Transactional
-    public Gift createGift(GiftDto giftDto, UUID wishListId, UUID userId) {
+    public GiftResponse createGift(GiftDto giftDto, UUID wishListId, UUID userId) {
         log.debug("Creating gift for wishlist {} by user {}", wishListId, userId);
         
         WishList wishList = wishListService.getWishListById(wishListId);
@@ -43,7 +86,7 @@ public class GiftService {
         }
         
         if (!wishList.getOwner().getId().equals(userId)) {
-            throw new IllegalArgumentException("У вас нет прав на добавление подарков в этот список");
+            throw new AccessDeniedException("У вас нет прав на добавление подарков в этот список");
         }
         
         Gift gift = new Gift();
@@ -61,6 +104,7 @@ public class GiftService {
         
         log.debug("Saving gift with wishList ID: {}", wishList.getId());
         Gift savedGift = giftRepository.save(gift);
+        wishListService.giftsChanged(wishListId, WishListStatsDelta.added(savedGift.getPrice()));
         
         // Verify the saved gift has the wishList properly set
         if (savedGift.getWishList() == null) {
@@ -68,7 +112,123 @@ public class GiftService {
         }
         
         log.debug("Successfully created gift {} for wishList {}", savedGift.getId(), savedGift.getWishList().getId());
-        return savedGift;
+        return GiftResponse.from(savedGift);
+    }
+
+    /**
+     * Пакетное создание, обновление и удаление подарков одного списка желаний.
+     * Права проверяются один раз, изменения записываются пакетами JDBC при сбросе контекста.
+     * @param wishListId идентификатор списка желаний
+     * @param request набор операций
+     * @param userId идентификатор пользователя
+     * @return результаты по каждому элементу запроса
+     */
+    @Transactional
+    public List<GiftBatchItemResult> applyBatch(UUID wishListId, GiftBatchRequest request, UUID userId) {
+        WishList wishList = wishListService.getWishListById(wishListId);
+        if (!wishList.getOwner().getId().equals(userId)) {
+            throw new AccessDeniedException("У вас нет прав на изменение подарков в этом списке");
+        }
+
+        List<GiftBatchItemResult> results = new ArrayList<>();
+        // позиция результата -> созданный или измененный подарок; ответы строятся после сброса,
+        // когда Hibernate уже увеличил версии
+        Map<Integer, Gift> written = new HashMap<>();
+        WishListStatsDelta statsDelta = WishListStatsDelta.NONE;
+
+        // save() только регистрирует сущность, INSERT выполняются пакетом при сбросе контекста
+        List<GiftDto> creates = request.getCreate();
+        int createdCount = 0;
+        for (int i = 0; i < creates.size(); i++) {
+            GiftDto giftDto = creates.get(i);
+            String error = validate(giftDto);
+            if (error != null) {
+                results.add(GiftBatchItemResult.failed(Operation.CREATE, i, null, Status.INVALID, error));
+                continue;
+            }
+            Gift gift = new Gift();
+            applyDto(gift, giftDto);
+            gift.setReserved(false);
+            gift.setWishList(wishList);
+            giftRepository.save(gift);
+            createdCount++;
+            statsDelta = statsDelta.plus(WishListStatsDelta.added(gift.getPrice()));
+            written.put(results.size(), gift);
+            results.add(GiftBatchItemResult.ok(Operation.CREATE, i, gift.getId(), null));
+        }
+
+        Set<UUID> requestedIds = new HashSet<>(request.getDelete());
+        request.getUpdate().stream()
+                .map(GiftUpdateDto::getId)
+                .filter(Objects::nonNull)
+                .forEach(requestedIds::add);
+        Map<UUID, Gift> existing = requestedIds.isEmpty()
+                ? Map.of()
+                : giftRepository.findAllByWishListIdAndIdIn(wishListId, requestedIds).stream()
+                        .collect(Collectors.toMap(Gift::getId, Function.identity()));
+
+        List<GiftUpdateDto> updates = request.getUpdate();
+        for (int i = 0; i < updates.size(); i++) {
+            GiftUpdateDto giftDto = updates.get(i);
+            String error = validate(giftDto);
+            if (error != null) {
+                results.add(GiftBatchItemResult.failed(Operation.UPDATE, i, giftDto.getId(), Status.INVALID, error));
+                continue;
+            }
+            Gift gift = existing.get(giftDto.getId());
+            if (gift == null) {
+                results.add(GiftBatchItemResult.failed(Operation.UPDATE, i, giftDto.getId(), Status.NOT_FOUND, "Подарок не найден"));
+                continue;
+            }
+            BigDecimal oldPrice = gift.getPrice();
+            applyDto(gift, giftDto);
+            statsDelta = statsDelta.plus(WishListStatsDelta.priceChanged(oldPrice, gift.getPrice(), gift.isReserved()));
+            written.put(results.size(), gift);
+            results.add(GiftBatchItemResult.ok(Operation.UPDATE, i, gift.getId(), null));
+        }
+
+        List<UUID> deletes = request.getDelete();
+        List<Gift> deleted = new ArrayList<>();
+        for (int i = 0; i < deletes.size(); i++) {
+            UUID id = deletes.get(i);
+            Gift gift = id != null ? existing.get(id) : null;
+            if (gift == null) {
+                results.add(GiftBatchItemResult.failed(Operation.DELETE, i, id, Status.NOT_FOUND, "Подарок не найден"));
+                continue;
+            }
+            deleted.add(gift);
+            statsDelta = statsDelta.plus(WishListStatsDelta.removed(gift.getPrice(), gift.isReserved()));
+            results.add(GiftBatchItemResult.ok(Operation.DELETE, i, id, null));
+        }
+        giftRepository.deleteAll(deleted);
+        giftRepository.flush();
+        written.forEach((position, gift) -> {
+            GiftBatchItemResult pending = results.get(position);
+            results.set(position, GiftBatchItemResult.ok(
+                    pending.getOperation(), pending.getIndex(), gift.getId(), GiftResponse.from(gift)));
+        });
+        wishListService.giftsChanged(wishListId, statsDelta);
+
+        log.debug("Batch for wishlist {}: {} created, {} deleted", wishListId, createdCount, deleted.size());
+        return results;
+    }
+
+    private String validate(GiftDto giftDto) {
+        Set<ConstraintViolation<GiftDto>> violations = validator.validate(giftDto);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private static void applyDto(Gift gift, GiftDto giftDto) {
+        gift.setName(giftDto.getName());
+        gift.setDescription(giftDto.getDescription());
+        gift.setImageUrl(giftDto.getImageUrl());
+        gift.setPrice(giftDto.getPrice());
     }
 
     /**
@@ -76,18 +236,108 @@ public class GiftService {
      * @param id идентификатор подарка
      * @return подарок
      */
+    @Transactional(readOnly = true)
     public Gift getGiftById(UUID id) {
         return giftRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Подарок не найден"));
     }
 
     /**
-     * Получение всех подарков из списка желаний
+     * Получение данных подарка по id без загрузки сущности
+     * @param id идентификатор подарка
+     * @return данные подарка
+     */
+    @Transactional(readOnly = true)
+    public GiftResponse getGiftResponse(UUID id) {
+        return giftRepository.findResponseById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Подарок не найден"));
+    }
+
+    /**
+     * Текущая версия подарка для проверки If-None-Match до загрузки его данных
+     * @param id идентификатор подарка
+     * @return версия подарка
+     */
+    @Transactional(readOnly = true)
+    public long getGiftVersion(UUID id) {
+        return giftRepository.findVersionById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Подарок не найден"));
+    }
+
+    /**
+     * Текущая версия списка желаний, от которой зависит выдача его подарков
+     * @param wishListId идентификатор списка желаний
+     * @return версия списка желаний
+     */
+    public long getWishListVersion(UUID wishListId) {
+        return wishListService.getWishListVersion(wishListId);
+    }
+
+    /**
+     * Получение страницы подарков из списка желаний запросом по ключу: читается только
+     * страница, а не весь список. Для несуществующего списка возвращается 404.
      * @param wishListId идентификатор списка желаний
-     * @return список подарков
+     * @param cursor курсор страницы, null для первой страницы
+     * @param size размер страницы
+     * @return страница подарков
      */
-    public List<Gift> getAllGiftsByWishListId(UUID wishListId) {
-        return giftRepository.findAllByWishListId(wishListId);
+    @Transactional(readOnly = true)
+    public CursorPage<GiftResponse> getAllGiftsByWishListId(UUID wishListId, String cursor, Integer size) {
+        int pageSize = CursorPage.pageSize(size);
+        List<GiftResponse> rows = giftRepository.findAllByWishListId(
+                wishListId, CursorPage.decodeCursor(cursor), CursorPage.limit(pageSize));
+        if (rows.isEmpty()) {
+            // пустая страница отличает пустой список от несуществующего
+            wishListService.getWishListVersion(wishListId);
+        }
+        return CursorPage.of(rows, pageSize, GiftResponse::getId);
+    }
+
+    /**
+     * Полнотекстовый поиск подарков по названию и описанию. Каждое слово запроса ищется
+     * как префикс, результаты упорядочены по релевантности.
+     * @param text поисковый запрос
+     * @param wishListId список желаний, в котором выполняется поиск, или null для всех списков пользователя
+     * @param userId идентификатор пользователя
+     * @param cursor курсор страницы, null для первой страницы
+     * @param size размер страницы
+     * @return страница найденных подарков
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<GiftResponse> searchGifts(String text, UUID wishListId, UUID userId, String cursor, Integer size) {
+        String query = toPrefixQuery(text);
+        int offset = CursorPage.decodeOffset(cursor);
+        if (offset > MAX_SEARCH_OFFSET) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Уточните поисковый запрос");
+        }
+        int pageSize = CursorPage.pageSize(size);
+        int limit = pageSize + 1;
+
+        List<GiftSearchView> rows = wishListId != null
+                ? giftRepository.searchByWishListId(wishListId, query, limit, offset)
+                : giftRepository.searchByOwnerId(userId, query, limit, offset);
+        List<GiftResponse> gifts = rows.stream()
+                .map(gift -> new GiftResponse(gift.getId(), gift.getName(), gift.getDescription(), gift.getImageUrl(),
+                        gift.getPrice(), gift.isReserved(), gift.getWishListId(), gift.getVersion()))
+                .toList();
+        return CursorPage.ofOffset(gifts, offset, pageSize);
+    }
+
+    /**
+     * Преобразование пользовательского ввода в запрос to_tsquery: слова из букв и цифр,
+     * каждое с префиксным совпадением, объединенные через И. Прочие символы отбрасываются,
+     * поэтому операторы tsquery из ввода не попадают в запрос.
+     */
+    private static String toPrefixQuery(String text) {
+        String query = SEARCH_TERM_SEPARATOR.splitAsStream(text == null ? "" : text.toLowerCase(Locale.ROOT))
+                .filter(term -> !term.isEmpty())
+                .limit(MAX_SEARCH_TERMS)
+                .map(term -> term + ":*")
+                .collect(Collectors.joining(" & "));
+        if (query.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Пустой поисковый запрос");
+        }
+        return query;
     }
 
     /**
@@ -95,64 +345,86 @@ public class GiftService {
      * @param id идентификатор подарка
      * @param giftDto новые данные
      * @param userId идентификатор пользователя
+     * @param expectedVersion версия из заголовка If-Match или null, если проверка не требуется
      * @return обновленный подарок
      */
     @Transactional
-    public Gift updateGift(UUID id, GiftDto giftDto, UUID userId) {
-        Gift gift = getGiftById(id);
-        
-        if (!gift.getWishList().getOwner().getId().equals(userId)) {
-            throw new IllegalArgumentException("У вас нет прав на редактирование этого подарка");
+    public GiftResponse updateGift(UUID id, GiftDto giftDto, UUID userId, Long expectedVersion) {
+        Gift gift = getOwnedGift(id, userId, "У вас нет прав на редактирование этого подарка");
+        if (expectedVersion != null && expectedVersion != gift.getVersion()) {
+            throw new PreconditionFailedException("Подарок был изменен, получите актуальную версию");
         }
-        
-        gift.setName(giftDto.getName());
-        gift.setDescription(giftDto.getDescription());
-        gift.setImageUrl(giftDto.getImageUrl());
-        gift.setPrice(giftDto.getPrice());
-        
-        return giftRepository.save(gift);
+
+        BigDecimal oldPrice = gift.getPrice();
+        applyDto(gift, giftDto);
+        // UPDATE с проверкой версии выполняется сразу: параллельное изменение дает 409 до пересчета показателей
+        giftRepository.flush();
+        wishListService.giftsChanged(gift.getWishList().getId(),
+                WishListStatsDelta.priceChanged(oldPrice, gift.getPrice(), gift.isReserved()));
+        return GiftResponse.from(gift);
     }
 
     /**
-     * Удаление подарка
+     * Удаление подарка. DELETE выполняется с проверкой версии, прочитанной вместе с правами:
+     * подарок, измененный или удаленный параллельным запросом, дает 409.
      * @param id идентификатор подарка
      * @param userId идентификатор пользователя
      */
     @Transactional
     public void deleteGift(UUID id, UUID userId) {
-        Gift gift = getGiftById(id);
-        
+        Gift gift = getOwnedGift(id, userId, "У вас нет прав на удаление этого подарка");
+        giftRepository.delete(gift);
+        giftRepository.flush();
+        wishListService.giftsChanged(gift.getWishList().getId(),
+                WishListStatsDelta.removed(gift.getPrice(), gift.isReserved()));
+    }
+
+    /**
+     * Загрузка подарка для изменения с проверкой прав. Подарок и его список обычно берутся
+     * из кэша второго уровня, а изменения записываются через управляемую сущность с версией:
+     * Hibernate обновляет только ее запись в кэше, тогда как массовые UPDATE и DELETE
+     * сбрасывали бы регионы подарков и списков целиком.
+     * @return подарок: 404, если подарка нет, и 403, если список принадлежит другому пользователю
+     */
+    private Gift getOwnedGift(UUID id, UUID userId, String forbiddenMessage) {
+        Gift gift = giftRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Подарок не найден"));
         if (!gift.getWishList().getOwner().getId().equals(userId)) {
-            throw new IllegalArgumentException("У вас нет прав на удаление этого подарка");
+            throw new AccessDeniedException(forbiddenMessage);
         }
-        
-        giftRepository.delete(gift);
+        return gift;
     }
 
     /**
-     * Переключение статуса зарезервированности подарка
-     * @param id идентификатор подарка
-     * @return подарок
+     * Резервирование подарка одним условным UPDATE без предварительного чтения
+     * @param giftId идентификатор подарка
      */
     @Transactional
-    public Gift toggleReserved(UUID id) {
-        Gift gift = getGiftById(id);
-        gift.setReserved(!gift.isReserved());
-        return giftRepository.save(gift);
+    public void reserveGift(UUID giftId) {
+        ReservedGift gift = giftRepository.updateReserved(giftId, true)
+                .orElseThrow(() -> reservationFailure(giftId, "Подарок уже зарезервирован"));
+        wishListService.giftsChanged(gift.getWishListId(), WishListStatsDelta.reservationChanged(gift.getPrice(), true));
     }
 
     /**
-     * Резервирование подарка
+     * Снятие резерва с подарка одним условным UPDATE без предварительного чтения
      * @param giftId идентификатор подарка
-     * @param userId идентификатор пользователя
      */
     @Transactional
-    public void reserveGift(UUID giftId, UUID userId) {
-        Gift gift = getGiftById(giftId);
-        if (gift.isReserved()) {
-            throw new IllegalStateException("Gift is already reserved");
+    public void unreserveGift(UUID giftId) {
+        ReservedGift gift = giftRepository.updateReserved(giftId, false)
+                .orElseThrow(() -> reservationFailure(giftId, "Подарок не зарезервирован"));
+        wishListService.giftsChanged(gift.getWishListId(), WishListStatsDelta.reservationChanged(gift.getPrice(), false));
+    }
+
+    /**
+     * Причина, по которой условный UPDATE не затронул ни одной записи:
+     * подарка нет или он уже находится в требуемом состоянии
+     */
+    private RuntimeException reservationFailure(UUID giftId, String conflictMessage) {
+        if (!giftRepository.existsById(giftId)) {
+            return new EntityNotFoundException("Подарок не найден");
         }
-        gift.setReserved(true);
-        giftRepository.save(gift);
+        return new ConflictException(conflictMessage);
     }
 }
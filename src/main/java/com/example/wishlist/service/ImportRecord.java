@@ -0,0 +1,49 @@
+package com.example.wishlist.service;
+
+import com.example.wishlist.dto.GiftDto;
+import com.example.wishlist.dto.WishListDto;
+import lombok.Value;
+
+/**
+ * Запись, разобранная из строки файла импорта: список желаний или подарок текущего списка
+ */
+@Value
+class ImportRecord {
+
+    enum Kind {
+        WISHLIST,
+        GIFT
+    }
+
+    long lineNumber;
+
+    /**
+     * Тип записи; null, если строку не удалось разобрать
+     */
+    Kind kind;
+
+    WishListDto wishList;
+
+    GiftDto gift;
+
+    /**
+     * Ошибка разбора или проверки; запись с ошибкой не импортируется
+     */
+    String error;
+
+    static ImportRecord wishList(long lineNumber, WishListDto wishList) {
+        return new ImportRecord(lineNumber, Kind.WISHLIST, wishList, null, null);
+    }
+
+    static ImportRecord gift(long lineNumber, GiftDto gift) {
+        return new ImportRecord(lineNumber, Kind.GIFT, null, gift, null);
+    }
+
+    static ImportRecord failed(long lineNumber, Kind kind, String error) {
+        return new ImportRecord(lineNumber, kind, null, null, error);
+    }
+
+    ImportRecord withError(String error) {
+        return new ImportRecord(lineNumber, kind, wishList, gift, error);
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.wishlist.service;
+
+import com.example.wishlist.dto.GiftDto;
+import com.example.wishlist.dto.WishListDto;
+import com.example.wishlist.model.ImportFormat;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Разбор строк файла импорта. Экземпляр хранит состояние одного файла (заголовок CSV,
+ * текущий список), поэтому строки передаются строго по порядку, включая уже импортированные.
+ */
+abstract class ImportRecordParser {
+
+    /**
+     * Разбор строки
+     * @param lineNumber номер строки, начиная с 1
+     * @param line строка без перевода строки
+     * @return записи строки; пустой список для пустых строк и заголовка
+     */
+    abstract List<ImportRecord> parse(long lineNumber, String line);
+
+    static ImportRecordParser forFormat(ImportFormat format, ObjectMapper objectMapper) {
+        return switch (format) {
+            case CSV -> new Csv();
+            case NDJSON -> new Ndjson(objectMapper);
+        };
+    }
+
+    /**
+     * Строки в формате выгрузки: {"type": "wishlist" | "gift", "data": {...}}.
+     * Подарки относятся к последнему списку желаний перед ними.
+     */
+    private static final class Ndjson extends ImportRecordParser {
+
+        private final ObjectMapper objectMapper;
+
+        private Ndjson(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        List<ImportRecord> parse(long lineNumber, String line) {
+            if (line.isBlank()) {
+                return List.of();
+            }
+            try {
+                JsonNode node = objectMapper.readTree(line);
+                JsonNode data = node.get("data");
+                String type = node.path("type").asText();
+                if (data == null || !data.isObject()) {
+                    return List.of(ImportRecord.failed(lineNumber, null, "Отсутствует объект data"));
+                }
+                return switch (type) {
+                    case "wishlist" -> List.of(ImportRecord.wishList(lineNumber, objectMapper.treeToValue(data, WishListDto.class)));
+                    case "gift" -> List.of(ImportRecord.gift(lineNumber, objectMapper.treeToValue(data, GiftDto.class)));
+                    default -> List.of(ImportRecord.failed(lineNumber, null, "Неизвестный тип записи: " + type));
+                };
+            } catch (JsonProcessingException ex) {
+                return List.of(ImportRecord.failed(lineNumber, null, "Некорректный JSON: " + ex.getOriginalMessage()));
+            }
+        }
+    }
+
+    /**
+     * CSV с обязательной строкой заголовка. Строка с непустым wishlist_title, отличным от предыдущего,
+     * начинает новый список; строка с пустым wishlist_title продолжает текущий.
+     * Строка без gift_name только объявляет список. Значения в кавычках не могут содержать переводы строк.
+     */
+    private static final class Csv extends ImportRecordParser {
+
+        private static final String WISHLIST_TITLE = "wishlist_title";
+        private static final String WISHLIST_DESCRIPTION = "wishlist_description";
+        private static final String GIFT_NAME = "gift_name";
+        private static final String GIFT_DESCRIPTION = "gift_description";
+        private static final String GIFT_IMAGE_URL = "gift_image_url";
+        private static final String GIFT_PRICE = "gift_price";
+
+        private Map<String, Integer> columns;
+        private String currentTitle;
+
+        @Override
+        List<ImportRecord> parse(long lineNumber, String line) {
+            if (line.isBlank()) {
+                return List.of();
+            }
+            List<String> values = split(line);
+            if (values == null) {
+                return List.of(ImportRecord.failed(lineNumber, null, "Незакрытая кавычка"));
+            }
+            if (columns == null) {
+                return parseHeader(lineNumber, values);
+            }
+
+            List<ImportRecord> records = new ArrayList<>(2);
+            String title = value(values, WISHLIST_TITLE);
+            if (title != null && !title.equals(currentTitle)) {
+                WishListDto wishList = new WishListDto();
+                wishList.setTitle(title);
+                wishList.setDescription(value(values, WISHLIST_DESCRIPTION));
+                records.add(ImportRecord.wishList(lineNumber, wishList));
+                currentTitle = title;
+            }
+
+            String name = value(values, GIFT_NAME);
+            String description = value(values, GIFT_DESCRIPTION);
+            String imageUrl = value(values, GIFT_IMAGE_URL);
+            String price = value(values, GIFT_PRICE);
+            if (name == null && description == null && imageUrl == null && price == null) {
+                return records;
+            }
+            GiftDto gift = new GiftDto();
+            gift.setName(name);
+            gift.setDescription(description);
+            gift.setImageUrl(imageUrl);
+            if (price != null) {
+                try {
+                    gift.setPrice(new BigDecimal(price));
+                } catch (NumberFormatException ex) {
+                    records.add(ImportRecord.failed(lineNumber, ImportRecord.Kind.GIFT, "Некорректная цена: " + price));
+                    return records;
+                }
+            }
+            records.add(ImportRecord.gift(lineNumber, gift));
+            return records;
+        }
+
+        private List<ImportRecord> parseHeader(long lineNumber, List<String> values) {
+            Map<String, Integer> header = new HashMap<>();
+            for (int i = 0; i < values.size(); i++) {
+                header.put(values.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            if (!header.containsKey(WISHLIST_TITLE) || !header.containsKey(GIFT_NAME)) {
+                // без заголовка строки разобрать нельзя, поэтому ошибку получат и все следующие строки
+                return List.of(ImportRecord.failed(lineNumber, null,
+                        "Первая строка должна быть заголовком с колонками " + WISHLIST_TITLE + " и " + GIFT_NAME));
+            }
+            columns = header;
+            return List.of();
+        }
+
+        private String value(List<String> values, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= values.size()) {
+                return null;
+            }
+            String value = values.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        /**
+         * Разбиение строки CSV по RFC 4180: запятая как разделитель, кавычки экранируются удвоением
+         * @return значения или null, если кавычка не закрыта
+         */
+        private static List<String> split(String line) {
+            List<String> values = new ArrayList<>();
+            StringBuilder current = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        current.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    values.add(current.toString());
+                    current.setLength(0);
+                } else {
+                    current.append(c);
+                }
+            }
+            if (quoted) {
+                return null;
+            }
+            values.add(current.toString());
+            return values;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.wishlist.service;
+
+import com.example.wishlist.dto.ExportRecord;
+import com.example.wishlist.dto.GiftResponse;
+import com.example.wishlist.dto.WishListExportRow;
+import com.example.wishlist.repository.GiftRepository;
+import com.example.wishlist.repository.WishListRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Выгрузка всех списков желаний и подарков пользователя в формате NDJSON.
+ * Данные читаются курсорами и сразу пишутся в ответ, поэтому расход памяти не зависит от объема.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserDataExportService {
+
+    private final WishListRepository wishListRepository;
+    private final GiftRepository giftRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Запись выгрузки: каждый список желаний, за которым следуют его подарки, по одной записи в строке.
+     * Выполняется в одной транзакции только для чтения, чтобы выгрузка была согласованной.
+     * @param userId идентификатор пользователя
+     * @param out поток ответа
+     * @throws IOException ошибка записи в поток
+     */
+    @Transactional(readOnly = true)
+    public void export(UUID userId, OutputStream out) throws IOException {
+        // запись сбрасывается в ответ по заполнении буфера, а не после каждой строки
+        ObjectWriter writer = objectMapper.writerFor(ExportRecord.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n");
+        long wishLists = 0;
+        long gifts = 0;
+        try (Stream<WishListExportRow> wishListRows = wishListRepository.streamAllByOwnerId(userId);
+             Stream<GiftResponse> giftRows = giftRepository.streamAllByOwnerId(userId);
+             SequenceWriter sequence = writer.writeValues(out)) {
+            // оба потока упорядочены по id списка, поэтому подарки каждого списка идут сплошным блоком
+            Iterator<GiftResponse> giftIterator = giftRows.iterator();
+            GiftResponse gift = giftIterator.hasNext() ? giftIterator.next() : null;
+            for (Iterator<WishListExportRow> it = wishListRows.iterator(); it.hasNext(); ) {
+                WishListExportRow wishList = it.next();
+                sequence.write(ExportRecord.wishList(wishList));
+                wishLists++;
+                while (gift != null && Objects.equals(gift.getWishListId(), wishList.getId())) {
+                    sequence.write(ExportRecord.gift(gift));
+                    gifts++;
+                    gift = giftIterator.hasNext() ? giftIterator.next() : null;
+                }
+            }
+        }
+        if (wishLists > 0) {
+            out.write('\n');
+        }
+        log.debug("Exported {} wishlists and {} gifts for user {}", wishLists, gifts, userId);
+    }
+}
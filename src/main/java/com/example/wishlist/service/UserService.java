@@ -1,8 +1,12 @@
 package com.example.wishlist.service;
 
+import com.example.wishlist.dto.CursorPage;
 import com.example.wishlist.dto.UserRegistrationDto;
+import com.example.wishlist.dto.UserResponse;
 import com.example.wishlist.model.User;
 import com.example.wishlist.repository.UserRepository;
+import com.example.wishlist.security.CustomUserDetailsService;
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -17,10 +21,12 @@ import java.util.UUID;
  */
 @Service
 @RequiredArgsConstructor
+@Timed("wishlist.service")
 public class UserService {
     
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CustomUserDetailsService userDetailsService;
 
     /**
      * Регистрация нового пользователя
@@ -41,7 +47,9 @@ public class UserService {
         user.setEmail(registrationDto.getEmail());
         user.setPassword(passwordEncoder.encode(registrationDto.getPassword()));
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        userDetailsService.evict(savedUser.getUsername());
+        return savedUser;
     }
 
     /**
@@ -49,6 +57,7 @@ public class UserService {
      * @param username имя пользователя
      * @return пользователь
      */
+    @Transactional(readOnly = true)
     public User getUserByUsername(String username) {
         return userRepository.findByUsername(username)
                 .orElseThrow(() -> new EntityNotFoundException("Пользователь не найден"));
@@ -59,16 +68,31 @@ public class UserService {
      * @param id идентификатор пользователя
      * @return пользователь
      */
+    @Transactional(readOnly = true)
     public User getUserById(UUID id) {
         return userRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Пользователь не найден"));
     }
 
     /**
-     * Получение списка всех пользователей
-     * @return список пользователей
+     * Получение ссылки на пользователя без загрузки из базы данных
+     * @param id идентификатор пользователя
+     * @return ссылка на пользователя
+     */
+    public User getUserReference(UUID id) {
+        return userRepository.getReferenceById(id);
+    }
+
+    /**
+     * Получение страницы списка пользователей
+     * @param cursor курсор страницы, null для первой страницы
+     * @param size размер страницы
+     * @return страница пользователей
      */
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    @Transactional(readOnly = true)
+    public CursorPage<UserResponse> getAllUsers(String cursor, Integer size) {
+        int pageSize = CursorPage.pageSize(size);
+        List<UserResponse> rows = userRepository.findAllUsers(CursorPage.decodeCursor(cursor), CursorPage.limit(pageSize));
+        return CursorPage.of(rows, pageSize, UserResponse::getId);
     }
 }
@@ -0,0 +1,499 @@
+package com.example.wishlist.service;
+
+import com.example.wishlist.dto.CursorPage;
+import com.example.wishlist.dto.GiftDto;
+import com.example.wishlist.dto.ImportJobResponse;
+import com.example.wishlist.dto.ImportLineErrorResponse;
+import com.example.wishlist.dto.WishListDto;
+import com.example.wishlist.exception.ConflictException;
+import com.example.wishlist.exception.ImportBusyException;
+import com.example.wishlist.model.Gift;
+import com.example.wishlist.model.ImportFormat;
+import com.example.wishlist.model.ImportJob;
+import com.example.wishlist.model.ImportJobError;
+import com.example.wishlist.model.ImportStatus;
+import com.example.wishlist.model.WishList;
+import com.example.wishlist.repository.GiftRepository;
+import com.example.wishlist.repository.ImportJobErrorRepository;
+import com.example.wishlist.repository.ImportJobRepository;
+import com.example.wishlist.repository.UserRepository;
+import com.example.wishlist.repository.WishListRepository;
+import com.example.wishlist.repository.WishListStatsRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Импорт списков желаний и подарков из файла CSV или NDJSON.
+ * <p>
+ * Файл обрабатывается потоком в три стадии: строки разбираются по порядку в потоке запроса,
+ * порции записей проверяются параллельно на пуле проверки, а записываются по порядку отдельным
+ * потоком, каждая порция в своей транзакции. Стадии связаны очередью ограниченной длины, поэтому
+ * при медленной записи чтение файла приостанавливается, а расход памяти не зависит от его размера.
+ * <p>
+ * Ошибки отдельных строк сохраняются и не прерывают импорт. Прогресс фиксируется в транзакции
+ * порции, поэтому после обрыва повторная загрузка того же файла продолжает импорт с первой
+ * незафиксированной строки.
+ */
+@Slf4j
+@Service
+public class WishListImportService implements DisposableBean {
+
+    /**
+     * Максимальное число сохраняемых ошибок одного задания; остальные только подсчитываются
+     */
+    private static final int MAX_STORED_ERRORS = 10_000;
+
+    /**
+     * Максимальная длина строки файла в символах
+     */
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    /**
+     * Признак конца файла в очереди записи
+     */
+    private static final Future<ImportChunk> END = CompletableFuture.completedFuture(null);
+
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private final ImportJobRepository importJobRepository;
+    private final ImportJobErrorRepository importJobErrorRepository;
+    private final UserRepository userRepository;
+    private final WishListRepository wishListRepository;
+    private final GiftRepository giftRepository;
+    private final WishListStatsRepository wishListStatsRepository;
+    private final WishListService wishListService;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    private final ThreadPoolExecutor validationExecutor;
+    private final ThreadPoolExecutor writerExecutor;
+    private final int chunkSize;
+    private final int queueCapacity;
+    private final Duration staleAfter;
+
+    public WishListImportService(ImportJobRepository importJobRepository,
+                                 ImportJobErrorRepository importJobErrorRepository,
+                                 UserRepository userRepository,
+                                 WishListRepository wishListRepository,
+                                 GiftRepository giftRepository,
+                                 WishListStatsRepository wishListStatsRepository,
+                                 WishListService wishListService,
+                                 Validator validator,
+                                 ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${wishlist.import.chunk-size:500}") int chunkSize,
+                                 @Value("${wishlist.import.validation-threads:4}") int validationThreads,
+                                 @Value("${wishlist.import.queue-capacity:8}") int queueCapacity,
+                                 @Value("${wishlist.import.max-concurrent:2}") int maxConcurrent,
+                                 @Value("${wishlist.import.stale-after:5m}") Duration staleAfter) {
+        this.importJobRepository = importJobRepository;
+        this.importJobErrorRepository = importJobErrorRepository;
+        this.userRepository = userRepository;
+        this.wishListRepository = wishListRepository;
+        this.giftRepository = giftRepository;
+        this.wishListStatsRepository = wishListStatsRepository;
+        this.wishListService = wishListService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.queueCapacity = queueCapacity;
+        this.staleAfter = staleAfter;
+        // число задач проверки ограничено длиной очередей записи всех импортов
+        this.validationExecutor = new ThreadPoolExecutor(
+                validationThreads, validationThreads,
+                0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("import-validation-"));
+        // без очереди: при занятых потоках записи новый импорт сразу отклоняется
+        this.writerExecutor = new ThreadPoolExecutor(
+                maxConcurrent, maxConcurrent,
+                0L, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(),
+                new CustomizableThreadFactory("import-writer-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Создание задания импорта
+     * @param format формат файла
+     * @param userId идентификатор пользователя, которому будут принадлежать списки
+     * @return созданное задание
+     */
+    @Transactional
+    public ImportJobResponse createJob(ImportFormat format, UUID userId) {
+        Instant now = Instant.now();
+        ImportJob job = new ImportJob();
+        job.setUserId(userId);
+        job.setFormat(format);
+        job.setStatus(ImportStatus.PENDING);
+        job.setCreatedAt(now);
+        job.setUpdatedAt(now);
+        return ImportJobResponse.from(importJobRepository.save(job));
+    }
+
+    /**
+     * Получение состояния задания импорта. Читается с основной базы, чтобы прогресс не отставал.
+     * @param id идентификатор задания
+     * @param userId идентификатор пользователя
+     * @return состояние задания
+     */
+    @Transactional
+    public ImportJobResponse getJob(UUID id, UUID userId) {
+        return ImportJobResponse.from(getOwnedJob(id, userId));
+    }
+
+    /**
+     * Получение ошибок строк задания импорта
+     * @param id идентификатор задания
+     * @param userId идентификатор пользователя
+     * @param afterLine номер строки, после которой начинается выборка
+     * @param size размер страницы
+     * @return ошибки, упорядоченные по номеру строки
+     */
+    @Transactional(readOnly = true)
+    public List<ImportLineErrorResponse> getErrors(UUID id, UUID userId, Long afterLine, Integer size) {
+        getOwnedJob(id, userId);
+        return importJobErrorRepository.findByJobIdAndLineNumberGreaterThanOrderByLineNumber(
+                        id, afterLine != null ? afterLine : 0L, Limit.of(CursorPage.pageSize(size))).stream()
+                .map(ImportLineErrorResponse::from)
+                .toList();
+    }
+
+    /**
+     * Загрузка файла в задание импорта. Возвращается после обработки всего файла или обрыва загрузки;
+     * строки, уже зафиксированные предыдущей загрузкой, пропускаются.
+     * @param id идентификатор задания
+     * @param userId идентификатор пользователя
+     * @param content содержимое файла в UTF-8
+     * @return состояние задания после загрузки
+     */
+    public ImportJobResponse runImport(UUID id, UUID userId, InputStream content) {
+        ImportJob job = transaction.execute(status -> getOwnedJob(id, userId));
+        Instant now = Instant.now();
+        Integer claimed = transaction.execute(status -> importJobRepository.claim(id, now, now.minus(staleAfter),
+                ImportStatus.PENDING, ImportStatus.FAILED, ImportStatus.RUNNING));
+        if (claimed == null || claimed == 0) {
+            throw new ConflictException(job.getStatus() == ImportStatus.COMPLETED
+                    ? "Импорт уже завершен"
+                    : "Файл уже загружается в это задание");
+        }
+
+        BlockingQueue<Future<ImportChunk>> pending = new ArrayBlockingQueue<>(queueCapacity);
+        ChunkWriter writer = new ChunkWriter(job, pending);
+        Future<?> writing;
+        try {
+            writing = writerExecutor.submit(new DelegatingSecurityContextRunnable(writer));
+        } catch (RejectedExecutionException ex) {
+            transaction.executeWithoutResult(status ->
+                    importJobRepository.finish(id, job.getStatus(), job.getMessage(), Instant.now()));
+            throw new ImportBusyException();
+        }
+
+        String failure = null;
+        try {
+            readChunks(job, content, pending, writer);
+        } catch (IOException ex) {
+            failure = "Загрузка файла прервана: " + ex.getMessage();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            failure = "Загрузка файла прервана";
+        } finally {
+            // записанные порции фиксируются и при обрыве чтения
+            enqueueEnd(pending, writer);
+        }
+
+        try {
+            writing.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            writing.cancel(true);
+            failure = "Загрузка файла прервана";
+        } catch (ExecutionException ex) {
+            failure = "Ошибка записи: " + ex.getCause().getMessage();
+        }
+        if (writer.getFailure() != null) {
+            failure = writer.getFailure();
+        }
+
+        ImportStatus result = failure == null ? ImportStatus.COMPLETED : ImportStatus.FAILED;
+        String message = failure;
+        transaction.executeWithoutResult(status -> importJobRepository.finish(id, result, message, Instant.now()));
+        log.info("Import {} finished with status {}", id, result);
+        return transaction.execute(status -> getJob(id, userId));
+    }
+
+    private void readChunks(ImportJob job, InputStream content, BlockingQueue<Future<ImportChunk>> pending,
+                            ChunkWriter writer) throws IOException, InterruptedException {
+        BoundedLineReader reader = new BoundedLineReader(
+                new InputStreamReader(content, StandardCharsets.UTF_8), MAX_LINE_LENGTH);
+        ImportRecordParser parser = ImportRecordParser.forFormat(job.getFormat(), objectMapper);
+        List<ImportRecord> records = new ArrayList<>(chunkSize);
+        long lineNumber = 0;
+        long submittedLine = job.getLastLine();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (lineNumber == 1 && !line.isEmpty() && line.charAt(0) == BYTE_ORDER_MARK) {
+                line = line.substring(1);
+            }
+            // уже импортированные строки разбираются, чтобы восстановить заголовок CSV и текущий список
+            List<ImportRecord> parsed = reader.isLineTooLong()
+                    ? List.of(ImportRecord.failed(lineNumber, null, "Строка длиннее " + MAX_LINE_LENGTH + " символов"))
+                    : parser.parse(lineNumber, line);
+            if (lineNumber <= job.getLastLine()) {
+                continue;
+            }
+            records.addAll(parsed);
+            if (records.size() >= chunkSize) {
+                if (!enqueue(pending, writer, records, lineNumber)) {
+                    return;
+                }
+                records = new ArrayList<>(chunkSize);
+                submittedLine = lineNumber;
+            }
+        }
+        if (lineNumber > submittedLine) {
+            enqueue(pending, writer, records, lineNumber);
+        }
+    }
+
+    /**
+     * Передача порции на проверку и постановка в очередь записи. Блокируется, пока очередь заполнена.
+     * @return false, если запись остановлена из-за ошибки и чтение нужно прекратить
+     */
+    private boolean enqueue(BlockingQueue<Future<ImportChunk>> pending, ChunkWriter writer,
+                            List<ImportRecord> records, long lastLine) throws InterruptedException {
+        Future<ImportChunk> chunk = CompletableFuture.supplyAsync(
+                () -> validate(new ImportChunk(records, lastLine)), validationExecutor);
+        while (!pending.offer(chunk, 1, TimeUnit.SECONDS)) {
+            if (writer.isStopped()) {
+                chunk.cancel(false);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void enqueueEnd(BlockingQueue<Future<ImportChunk>> pending, ChunkWriter writer) {
+        try {
+            while (!pending.offer(END, 1, TimeUnit.SECONDS)) {
+                if (writer.isStopped()) {
+                    return;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ImportChunk validate(ImportChunk chunk) {
+        List<ImportRecord> records = new ArrayList<>(chunk.getRecords().size());
+        for (ImportRecord record : chunk.getRecords()) {
+            String error = null;
+            if (record.getError() == null) {
+                error = record.getKind() == ImportRecord.Kind.WISHLIST
+                        ? violations(validator.<WishListDto>validate(record.getWishList()))
+                        : violations(validator.<GiftDto>validate(record.getGift()));
+            }
+            records.add(error != null ? record.withError(error) : record);
+        }
+        return new ImportChunk(records, chunk.getLastLine());
+    }
+
+    private static <T> String violations(Set<ConstraintViolation<T>> violations) {
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private ImportJob getOwnedJob(UUID id, UUID userId) {
+        ImportJob job = importJobRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Задание импорта не найдено"));
+        if (!job.getUserId().equals(userId)) {
+            throw new AccessDeniedException("У вас нет доступа к этому заданию импорта");
+        }
+        return job;
+    }
+
+    @Override
+    public void destroy() {
+        writerExecutor.shutdownNow();
+        validationExecutor.shutdownNow();
+    }
+
+    /**
+     * Порция записей и номер последней строки файла, вошедшей в нее
+     */
+    @lombok.Value
+    private static class ImportChunk {
+        List<ImportRecord> records;
+        long lastLine;
+    }
+
+    /**
+     * Стадия записи: забирает проверенные порции по порядку и записывает каждую в своей транзакции
+     */
+    private class ChunkWriter implements Runnable {
+
+        private final UUID jobId;
+        private final UUID userId;
+        private final BlockingQueue<Future<ImportChunk>> pending;
+        private UUID currentWishListId;
+        private long storedErrors;
+        private volatile boolean stopped;
+        private volatile String failure;
+
+        ChunkWriter(ImportJob job, BlockingQueue<Future<ImportChunk>> pending) {
+            this.jobId = job.getId();
+            this.userId = job.getUserId();
+            this.pending = pending;
+            this.currentWishListId = job.getCurrentWishListId();
+            this.storedErrors = job.getFailedLines();
+        }
+
+        boolean isStopped() {
+            return stopped;
+        }
+
+        String getFailure() {
+            return failure;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    Future<ImportChunk> next = pending.take();
+                    if (next == END) {
+                        return;
+                    }
+                    ImportChunk chunk = next.get();
+                    currentWishListId = transaction.execute(status -> write(chunk));
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                failure = "Запись прервана";
+            } catch (ExecutionException ex) {
+                failure = "Ошибка проверки: " + ex.getCause().getMessage();
+            } catch (RuntimeException ex) {
+                log.warn("Import {} stopped on write", jobId, ex);
+                failure = "Ошибка записи: " + ex.getMessage();
+            } finally {
+                stopped = true;
+            }
+        }
+
+        /**
+         * Запись порции: списки и подарки, их сводные показатели, ошибки строк и прогресс задания
+         * @return список желаний, к которому относятся подарки следующей порции
+         */
+        private UUID write(ImportChunk chunk) {
+            WishList current = currentWishListId != null ? wishListRepository.getReferenceById(currentWishListId) : null;
+            List<WishList> created = new ArrayList<>();
+            Map<UUID, WishListStatsDelta> deltas = new LinkedHashMap<>();
+            List<ImportJobError> errors = new ArrayList<>();
+            long gifts = 0;
+            long failedLines = 0;
+            long lastFailedLine = -1;
+
+            for (ImportRecord record : chunk.getRecords()) {
+                String error = record.getError();
+                if (error == null && record.getKind() == ImportRecord.Kind.WISHLIST) {
+                    WishList wishList = new WishList();
+                    wishList.setTitle(record.getWishList().getTitle());
+                    wishList.setDescription(record.getWishList().getDescription());
+                    wishList.setOwner(userRepository.getReferenceById(userId));
+                    wishListRepository.save(wishList);
+                    created.add(wishList);
+                    current = wishList;
+                    continue;
+                }
+                if (error == null && current == null) {
+                    error = "Подарок не относится ни к одному импортированному списку желаний";
+                } else if (error == null) {
+                    GiftDto giftDto = record.getGift();
+                    Gift gift = new Gift();
+                    gift.setName(giftDto.getName());
+                    gift.setDescription(giftDto.getDescription());
+                    gift.setImageUrl(giftDto.getImageUrl());
+                    gift.setPrice(giftDto.getPrice());
+                    gift.setReserved(false);
+                    gift.setWishList(current);
+                    giftRepository.save(gift);
+                    gifts++;
+                    deltas.merge(current.getId(), WishListStatsDelta.added(giftDto.getPrice()), WishListStatsDelta::plus);
+                    continue;
+                }
+
+                if (record.getKind() == ImportRecord.Kind.WISHLIST) {
+                    // подарки непринятого списка не должны попасть в предыдущий
+                    current = null;
+                }
+                if (record.getLineNumber() != lastFailedLine) {
+                    lastFailedLine = record.getLineNumber();
+                    failedLines++;
+                    if (storedErrors < MAX_STORED_ERRORS) {
+                        ImportJobError jobError = new ImportJobError();
+                        jobError.setJobId(jobId);
+                        jobError.setLineNumber(record.getLineNumber());
+                        jobError.setMessage(error);
+                        errors.add(jobError);
+                        storedErrors++;
+                    }
+                }
+            }
+
+            // сброс до вставки показателей, которые ссылаются на списки внешним ключом
+            giftRepository.flush();
+            created.forEach(wishList -> wishListStatsRepository.createEmpty(wishList.getId()));
+            deltas.forEach(wishListService::giftsChanged);
+            importJobErrorRepository.saveAll(errors);
+
+            UUID next = current != null ? current.getId() : null;
+            importJobRepository.advance(jobId, chunk.getLastLine(), next, created.size(), gifts, failedLines, Instant.now());
+            return next;
+        }
+    }
+}
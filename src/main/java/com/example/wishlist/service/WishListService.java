@@ -1,26 +1,52 @@
 package com.example.wishlist.service;
 
+import com.example.wishlist.dto.CursorPage;
+import com.example.wishlist.dto.GiftResponse;
+import com.example.wishlist.dto.OwnerSummary;
 import com.example.wishlist.dto.WishListDto;
+import com.example.wishlist.dto.WishListResponse;
+import com.example.wishlist.dto.WishListSummaryResponse;
+import com.example.wishlist.exception.PreconditionFailedException;
 import com.example.wishlist.model.User;
 import com.example.wishlist.model.WishList;
+import com.example.wishlist.repository.GiftRepository;
 import com.example.wishlist.repository.WishListRepository;
+import com.example.wishlist.repository.WishListStatsRepository;
+import com.example.wishlist.repository.WishListView;
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * Сервис для работы со списками желаний
  */
 @Service
 @RequiredArgsConstructor
+@Timed("wishlist.service")
 public class WishListService {
     
     private final WishListRepository wishListRepository;
+    private final GiftRepository giftRepository;
     private final UserService userService;
+    private final WishListViewCache wishListViewCache;
+    private final WishListStatsRepository wishListStatsRepository;
+
+    /**
+     * Число подарков, встраиваемых в ответ со списком желаний; остальные
+     * запрашиваются постранично через GET /api/gifts/wishlist/{id}
+     */
+    static final int EMBEDDED_GIFTS = CursorPage.DEFAULT_SIZE;
 
     /**
      * Создание нового списка желаний
@@ -29,15 +55,18 @@ public class WishListService {
      * @return созданный список желаний
      */
     @Transactional
-    public WishList createWishList(WishListDto wishListDto, UUID userId) {
-        User owner = userService.getUserById(userId);
+    public WishListResponse createWishList(WishListDto wishListDto, UUID userId) {
+        User owner = userService.getUserReference(userId);
         
         WishList wishList = new WishList();
         wishList.setTitle(wishListDto.getTitle());
         wishList.setDescription(wishListDto.getDescription());
         wishList.setOwner(owner);
         
-        return wishListRepository.save(wishList);
+        // сброс до вставки показателей, которые ссылаются на список внешним ключом
+        WishList savedWishList = wishListRepository.saveAndFlush(wishList);
+        wishListStatsRepository.createEmpty(savedWishList.getId());
+        return WishListResponse.from(savedWishList);
     }
 
     /**
@@ -45,27 +74,75 @@ public class WishListService {
      * @param id идентификатор списка желаний
      * @return список желаний
      */
+    @Transactional(readOnly = true)
     public WishList getWishListById(UUID id) {
         return wishListRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Список желаний не найден"));
     }
 
     /**
-     * Получение всех списков желаний пользователя
-     * @param userId идентификатор пользователя
-     * @return список желаний пользователя
+     * Получение списка желаний с подарками по id. Повторные запросы обслуживаются из кэша
+     * представлений до первого изменения списка или его подарков.
+     * @param id идентификатор списка желаний
+     * @return данные списка желаний
      */
-    public List<WishList> getAllWishListsByUserId(UUID userId) {
-        return wishListRepository.findAllByOwnerId(userId);
+    public WishListResponse getWishListResponse(UUID id) {
+        return wishListViewCache.get(id, this::loadWishListResponse);
+    }
+
+    /**
+     * Текущая версия списка желаний: из кэша представлений, если представление уже загружено,
+     * иначе отдельным запросом без загрузки подарков
+     * @param id идентификатор списка желаний
+     * @return версия списка желаний
+     */
+    @Transactional(readOnly = true)
+    public long getWishListVersion(UUID id) {
+        WishListResponse cached = wishListViewCache.getIfPresent(id);
+        if (cached != null) {
+            return cached.getVersion();
+        }
+        return wishListRepository.findVersionById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Список желаний не найден"));
+    }
+
+    private WishListResponse loadWishListResponse(UUID id) {
+        WishListView view = wishListRepository.findViewById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Список желаний не найден"));
+        return toResponse(view, firstGifts(id));
     }
 
     /**
-     * Получение всех списков желаний пользователя
+     * Получение страницы списков желаний пользователя вместе с первыми подарками каждого списка.
+     * Выполняет два запроса независимо от числа списков на странице.
      * @param userId идентификатор пользователя
-     * @return список желаний пользователя
+     * @param cursor курсор страницы, null для первой страницы
+     * @param size размер страницы
+     * @return страница списков желаний пользователя
      */
-    public List<WishList> getWishListsByUserId(UUID userId) {
-        return wishListRepository.findByOwnerId(userId);
+    @Transactional(readOnly = true)
+    public CursorPage<WishListResponse> getAllWishListsByUserId(UUID userId, String cursor, Integer size) {
+        int pageSize = CursorPage.pageSize(size);
+        List<WishListView> rows = wishListRepository.findAllByOwnerId(
+                userId, CursorPage.decodeCursor(cursor), CursorPage.limit(pageSize));
+        CursorPage<WishListView> page = CursorPage.of(rows, pageSize, WishListView::getId);
+        if (page.getItems().isEmpty()) {
+            return new CursorPage<>(List.of(), null);
+        }
+
+        List<UUID> ids = page.getItems().stream()
+                .map(WishListView::getId)
+                .toList();
+        // на один подарок больше, чтобы определить, есть ли у списка продолжение
+        Map<UUID, List<GiftResponse>> giftsByWishList = giftRepository
+                .findFirstByWishListIdIn(ids, EMBEDDED_GIFTS + 1).stream()
+                .collect(Collectors.groupingBy(GiftResponse::getWishListId));
+
+        List<WishListResponse> items = page.getItems().stream()
+                .map(view -> toResponse(view, CursorPage.of(
+                        giftsByWishList.getOrDefault(view.getId(), List.of()), EMBEDDED_GIFTS, GiftResponse::getId)))
+                .toList();
+        return new CursorPage<>(items, page.getNextCursor());
     }
 
     /**
@@ -73,35 +150,138 @@ public class WishListService {
      * @param id идентификатор списка желаний
      * @param wishListDto новые данные
      * @param userId идентификатор пользователя
+     * @param expectedVersion версия из заголовка If-Match или null, если проверка не требуется
      * @return обновленный список желаний
      */
     @Transactional
-    public WishList updateWishList(UUID id, WishListDto wishListDto, UUID userId) {
-        WishList wishList = getWishListById(id);
-        
-        if (!wishList.getOwner().getId().equals(userId)) {
-            throw new IllegalArgumentException("У вас нет прав на редактирование этого списка желаний");
+    public WishListResponse updateWishList(UUID id, WishListDto wishListDto, UUID userId, Long expectedVersion) {
+        WishList wishList = getOwnedWishList(id, userId, "У вас нет прав на редактирование этого списка желаний");
+        if (expectedVersion != null && expectedVersion != wishList.getVersion()) {
+            throw new PreconditionFailedException("Список желаний был изменен, получите актуальную версию");
         }
-        
+
         wishList.setTitle(wishListDto.getTitle());
         wishList.setDescription(wishListDto.getDescription());
-        
-        return wishListRepository.save(wishList);
+        // UPDATE с проверкой версии выполняется сразу: параллельное изменение дает 409
+        wishListRepository.flush();
+        wishListViewCache.evict(id);
+
+        CursorPage<GiftResponse> gifts = firstGifts(id);
+        return new WishListResponse(
+                id,
+                wishList.getTitle(),
+                wishList.getDescription(),
+                OwnerSummary.from(wishList.getOwner()),
+                gifts.getItems(),
+                gifts.getNextCursor(),
+                wishList.getVersion());
     }
 
     /**
-     * Удаление списка желаний
+     * Удаление списка желаний вместе с подарками. Подарки удаляются одним запросом DELETE,
+     * без загрузки в память; в кэше второго уровня блокируются только записи удаляемых строк.
      * @param id идентификатор списка желаний
      * @param userId идентификатор пользователя
+     * @throws EntityNotFoundException если список уже удален, в том числе параллельным запросом
      */
     @Transactional
     public void deleteWishList(UUID id, UUID userId) {
-        WishList wishList = getWishListById(id);
-        
+        getOwnedWishList(id, userId, "У вас нет прав на удаление этого списка желаний");
+        if (!wishListRepository.deleteWithGifts(id)) {
+            throw new EntityNotFoundException("Список желаний не найден");
+        }
+        wishListViewCache.evict(id);
+    }
+
+    /**
+     * Получение сводных показателей списка желаний без загрузки подарков
+     * @param id идентификатор списка желаний
+     * @return сводка списка желаний
+     */
+    @Transactional(readOnly = true)
+    public WishListSummaryResponse getSummary(UUID id) {
+        return wishListStatsRepository.findById(id)
+                .map(WishListSummaryResponse::from)
+                .orElseThrow(() -> new EntityNotFoundException("Список желаний не найден"));
+    }
+
+    /**
+     * Получение сводных показателей нескольких списков желаний одним запросом
+     * @param ids идентификаторы списков желаний
+     * @return сводки найденных списков желаний
+     */
+    @Transactional(readOnly = true)
+    public List<WishListSummaryResponse> getSummaries(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        if (ids.size() > CursorPage.MAX_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Можно запросить не более " + CursorPage.MAX_SIZE + " списков");
+        }
+        return wishListStatsRepository.findAllByWishListIdIn(ids).stream()
+                .map(WishListSummaryResponse::from)
+                .toList();
+    }
+
+    /**
+     * Отметка об изменении подарков списка: увеличивает версию списка, применяет приращение
+     * сводных показателей и сбрасывает представление списка в кэше.
+     * Вызывается в транзакции каждого метода, изменяющего подарки.
+     * <p>
+     * Версия увеличивается одним UPDATE с {@code version = version + 1}: блокировка строки,
+     * взятая этим запросом, держится до фиксации, поэтому параллельные изменения подарков
+     * одного списка выполняются по очереди без отдельного SELECT ... FOR UPDATE, а в кэше
+     * второго уровня блокируется только запись этого списка.
+     * @param id идентификатор списка желаний
+     * @param delta изменение сводных показателей
+     */
+    @Transactional
+    void giftsChanged(UUID id, WishListStatsDelta delta) {
+        if (wishListRepository.markGiftsChanged(id) == 0) {
+            // список удален параллельным запросом, пока изменение ждало блокировку его строки
+            throw new EntityNotFoundException("Список желаний не найден");
+        }
+        if (!delta.isEmpty()) {
+            wishListStatsRepository.applyDelta(id, delta.getGifts(), delta.getReserved(),
+                    delta.getTotalPrice(), delta.getUnreservedPrice());
+        }
+        wishListViewCache.evict(id);
+    }
+
+    /**
+     * Загрузка списка желаний для изменения с проверкой прав. Список обычно берется из кэша
+     * второго уровня, а изменения записываются через управляемую сущность с версией:
+     * массовые UPDATE и DELETE сбрасывали бы регион списков целиком.
+     * @return список желаний: 404, если списка нет, и 403, если он принадлежит другому пользователю
+     */
+    private WishList getOwnedWishList(UUID id, UUID userId, String forbiddenMessage) {
+        WishList wishList = wishListRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Список желаний не найден"));
         if (!wishList.getOwner().getId().equals(userId)) {
-            throw new IllegalArgumentException("У вас нет прав на удаление этого списка желаний");
+            throw new AccessDeniedException(forbiddenMessage);
         }
-        
-        wishListRepository.delete(wishList);
+        return wishList;
+    }
+
+    /**
+     * Первые подарки списка для встраивания в ответ
+     * @return не более {@value #EMBEDDED_GIFTS} подарков и курсор продолжения
+     */
+    private CursorPage<GiftResponse> firstGifts(UUID id) {
+        List<GiftResponse> rows = giftRepository.findAllByWishListId(
+                id, CursorPage.decodeCursor(null), CursorPage.limit(EMBEDDED_GIFTS));
+        return CursorPage.of(List.copyOf(rows), EMBEDDED_GIFTS, GiftResponse::getId);
+    }
+
+    private static WishListResponse toResponse(WishListView view, CursorPage<GiftResponse> gifts) {
+        return new WishListResponse(
+                view.getId(),
+                view.getTitle(),
+                view.getDescription(),
+                new OwnerSummary(view.getOwnerId(), view.getOwnerUsername()),
+                gifts.getItems(),
+                gifts.getNextCursor(),
+                view.getVersion());
     }
 }
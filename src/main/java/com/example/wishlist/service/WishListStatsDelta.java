@@ -0,0 +1,58 @@
+package com.example.wishlist.service;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+/**
+ * Приращение сводных показателей списка желаний, вызванное изменением его подарков
+ */
+@Value
+class WishListStatsDelta {
+
+    static final WishListStatsDelta NONE = new WishListStatsDelta(0, 0, BigDecimal.ZERO, BigDecimal.ZERO);
+
+    int gifts;
+    int reserved;
+    BigDecimal totalPrice;
+    BigDecimal unreservedPrice;
+
+    static WishListStatsDelta added(BigDecimal price) {
+        BigDecimal amount = amount(price);
+        return new WishListStatsDelta(1, 0, amount, amount);
+    }
+
+    static WishListStatsDelta removed(BigDecimal price, boolean reserved) {
+        BigDecimal amount = amount(price);
+        return new WishListStatsDelta(-1, reserved ? -1 : 0, amount.negate(), reserved ? BigDecimal.ZERO : amount.negate());
+    }
+
+    static WishListStatsDelta priceChanged(BigDecimal oldPrice, BigDecimal newPrice, boolean reserved) {
+        BigDecimal difference = amount(newPrice).subtract(amount(oldPrice));
+        return new WishListStatsDelta(0, 0, difference, reserved ? BigDecimal.ZERO : difference);
+    }
+
+    static WishListStatsDelta reservationChanged(BigDecimal price, boolean reserved) {
+        BigDecimal amount = amount(price);
+        return reserved
+                ? new WishListStatsDelta(0, 1, BigDecimal.ZERO, amount.negate())
+                : new WishListStatsDelta(0, -1, BigDecimal.ZERO, amount);
+    }
+
+    WishListStatsDelta plus(WishListStatsDelta other) {
+        return new WishListStatsDelta(
+                gifts + other.gifts,
+                reserved + other.reserved,
+                totalPrice.add(other.totalPrice),
+                unreservedPrice.add(other.unreservedPrice));
+    }
+
+    boolean isEmpty() {
+        return gifts == 0 && reserved == 0
+                && totalPrice.signum() == 0 && unreservedPrice.signum() == 0;
+    }
+
+    private static BigDecimal amount(BigDecimal price) {
+        return price != null ? price : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.wishlist.service;
+
+import com.example.wishlist.repository.WishListRepository;
+import com.example.wishlist.repository.WishListStatsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Периодическая сверка сводных показателей списков желаний с фактическими данными подарков.
+ * Показатели поддерживаются приращениями при каждом изменении, сверка исправляет расхождения
+ * после ручных правок в базе. Списки обрабатываются порциями, каждая в своей короткой транзакции.
+ * <p>
+ * Сверку запускает каждый экземпляр приложения, выполняет же ее только один: на PostgreSQL
+ * на время сверки берется advisory lock, остальные экземпляры пропускают запуск.
+ */
+@Slf4j
+@Component
+public class WishListStatsRebuildJob {
+
+    private static final UUID FIRST = new UUID(0L, 0L);
+
+    /**
+     * Ключ advisory lock сверки, общий для всех экземпляров приложения
+     */
+    private static final long LOCK_KEY = 0x5769_7368_5374_6174L;
+
+    private final WishListStatsRepository wishListStatsRepository;
+    private final WishListRepository wishListRepository;
+    private final DataSource dataSource;
+    private final TransactionTemplate transaction;
+    private final int batchSize;
+
+    public WishListStatsRebuildJob(WishListStatsRepository wishListStatsRepository,
+                                   WishListRepository wishListRepository,
+                                   DataSource dataSource,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${wishlist.stats.rebuild-batch-size:500}") int batchSize) {
+        this.wishListStatsRepository = wishListStatsRepository;
+        this.wishListRepository = wishListRepository;
+        this.dataSource = dataSource;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Пересчет показателей всех списков желаний, если сверка не выполняется другим экземпляром
+     */
+    @Scheduled(cron = "${wishlist.stats.rebuild-cron:0 30 3 * * *}")
+    public void rebuild() throws SQLException {
+        // блокировка уровня сессии держится на отдельном соединении, пока идут транзакции порций
+        try (Connection connection = dataSource.getConnection()) {
+            boolean postgres = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+            if (postgres && !advisoryLock(connection, "select pg_try_advisory_lock(?)")) {
+                log.info("Wishlist stats rebuild skipped: already running on another instance");
+                return;
+            }
+            try {
+                rebuildAll();
+            } finally {
+                if (postgres) {
+                    advisoryLock(connection, "select pg_advisory_unlock(?)");
+                }
+            }
+        }
+    }
+
+    private void rebuildAll() {
+        Integer created = transaction.execute(status -> wishListStatsRepository.createMissing());
+        int rebuilt = 0;
+        UUID after = FIRST;
+        while (true) {
+            UUID from = after;
+            List<UUID> ids = transaction.execute(status -> {
+                List<UUID> chunk = wishListStatsRepository.findIdsAfter(from, Limit.of(batchSize));
+                if (!chunk.isEmpty()) {
+                    // строки списков блокируются до пересчета: изменение подарков, начатое раньше,
+                    // успевает зафиксировать приращение, а начатое позже ждет пересчета
+                    List<UUID> locked = wishListRepository.lockAllById(chunk);
+                    if (!locked.isEmpty()) {
+                        wishListStatsRepository.rebuild(locked);
+                    }
+                }
+                return chunk;
+            });
+            if (ids == null || ids.isEmpty()) {
+                break;
+            }
+            rebuilt += ids.size();
+            after = ids.get(ids.size() - 1);
+        }
+        log.info("Wishlist stats rebuilt: {} created, {} recalculated", created, rebuilt);
+    }
+
+    private static boolean advisoryLock(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, LOCK_KEY);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() && result.getBoolean(1);
+            }
+        }
+    }
+}
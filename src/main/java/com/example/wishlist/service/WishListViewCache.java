@@ -0,0 +1,80 @@
+package com.example.wishlist.service;
+
+import com.example.wishlist.config.CoalescingCache;
+import com.example.wishlist.config.ReadReplicaRoutingDataSource;
+import com.example.wishlist.dto.WishListResponse;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Кэш собранного представления списка желаний (данные списка, владелец, подарки) по id списка.
+ * Используется страницей просмотра списка и проверкой версии при выдаче подарков списка.
+ * Размер кэша ограничен суммарным числом подарков, а не числом списков: в представление
+ * встраиваются только первые подарки списка, поэтому вес одной записи ограничен.
+ */
+@Component
+public class WishListViewCache {
+
+    private final CoalescingCache<UUID, WishListResponse> views;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public WishListViewCache(PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${wishlist.view-cache.max-weight:200000}") long maxWeight,
+                             @Value("${wishlist.view-cache.ttl:10m}") Duration ttl) {
+        // вес незавершенной загрузки равен нулю, Caffeine пересчитывает его по завершении
+        this.views = new CoalescingCache<>(CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((UUID id, WishListResponse view) -> view.getGifts().size() + 1)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .<UUID, WishListResponse>buildAsync(), "wishlist-views"));
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // загрузка не должна видеть незакоммиченные изменения вызывающей транзакции
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Получение представления списка желаний. При промахе загрузка выполняется в отдельной
+     * транзакции только для чтения на основной базе: представление видят все пользователи,
+     * и отстающая реплика оставила бы в кэше устаревшие данные. Параллельные запросы того же id
+     * ждут одну загрузку в вызывающем потоке.
+     * @param id идентификатор списка желаний
+     * @param loader загрузка представления из базы
+     * @return представление списка желаний
+     */
+    public WishListResponse get(UUID id, Function<UUID, WishListResponse> loader) {
+        return views.get(id,
+                key -> ReadReplicaRoutingDataSource.onPrimary(() -> readOnlyTransaction.execute(status -> loader.apply(key))));
+    }
+
+    /**
+     * Представление из кэша без загрузки
+     * @param id идентификатор списка желаний
+     * @return загруженное представление или null, если его нет в кэше или оно еще загружается
+     */
+    public WishListResponse getIfPresent(UUID id) {
+        return views.getIfPresent(id);
+    }
+
+    /**
+     * Удаление представления из кэша. Должно вызываться любым методом, изменяющим список
+     * или его подарки. Внутри транзакции запись удаляется повторно после коммита: загрузка,
+     * начатая до коммита, завершится раньше повторного удаления и не оставит устаревших данных.
+     * @param id идентификатор списка желаний
+     */
+    public void evict(UUID id) {
+        views.evict(id);
+    }
+}
@@ -0,0 +1,33 @@
+-- Исходная схема, ранее создававшаяся Hibernate (ddl-auto: update).
+-- Для существующих баз эта миграция пропускается через baseline-on-migrate.
+
+CREATE TABLE users (
+    id       UUID         NOT NULL,
+    username VARCHAR(50)  NOT NULL,
+    email    VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    CONSTRAINT pk_users PRIMARY KEY (id),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE wishlists (
+    id          UUID         NOT NULL,
+    title       VARCHAR(255) NOT NULL,
+    description VARCHAR(255),
+    user_id     UUID         NOT NULL,
+    CONSTRAINT pk_wishlists PRIMARY KEY (id),
+    CONSTRAINT fk_wishlists_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE gifts (
+    id          UUID          NOT NULL,
+    name        VARCHAR(255)  NOT NULL,
+    description VARCHAR(1000),
+    image_url   VARCHAR(255),
+    price       NUMERIC(10, 2),
+    is_reserved BOOLEAN       NOT NULL,
+    wish_id     UUID          NOT NULL,
+    CONSTRAINT pk_gifts PRIMARY KEY (id),
+    CONSTRAINT fk_gifts_wishlist FOREIGN KEY (wish_id) REFERENCES wishlists (id)
+);
@@ -0,0 +1,7 @@
+-- Индексы под выборки по внешним ключам с keyset-пагинацией по id:
+-- GiftRepository.findAllByWishListId и WishListRepository.findAllByOwnerId
+CREATE INDEX IF NOT EXISTS idx_gifts_wish_id_id ON gifts (wish_id, id);
+CREATE INDEX IF NOT EXISTS idx_wishlists_user_id_id ON wishlists (user_id, id);
+
+-- Свободные (не зарезервированные) подарки списка
+CREATE INDEX IF NOT EXISTS idx_gifts_wish_id_unreserved ON gifts (wish_id) WHERE is_reserved = false;
@@ -0,0 +1,4 @@
+-- Версии для оптимистичных блокировок и ETag.
+-- Версия списка желаний увеличивается также при любом изменении его подарков.
+ALTER TABLE wishlists ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE gifts ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
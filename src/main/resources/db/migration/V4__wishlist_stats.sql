@@ -0,0 +1,21 @@
+-- Сводные показатели списков желаний, поддерживаемые инкрементально при изменении подарков.
+-- Расхождения исправляет периодический пересчет (WishListStatsRebuildJob).
+CREATE TABLE wishlist_stats (
+    wish_id          UUID           NOT NULL,
+    gift_count       INTEGER        NOT NULL,
+    reserved_count   INTEGER        NOT NULL,
+    total_price      NUMERIC(14, 2) NOT NULL,
+    unreserved_price NUMERIC(14, 2) NOT NULL,
+    CONSTRAINT pk_wishlist_stats PRIMARY KEY (wish_id),
+    CONSTRAINT fk_wishlist_stats_wishlist FOREIGN KEY (wish_id) REFERENCES wishlists (id)
+);
+
+INSERT INTO wishlist_stats (wish_id, gift_count, reserved_count, total_price, unreserved_price)
+SELECT w.id,
+       COUNT(g.id),
+       COUNT(g.id) FILTER (WHERE g.is_reserved),
+       COALESCE(SUM(g.price), 0),
+       COALESCE(SUM(g.price) FILTER (WHERE NOT g.is_reserved), 0)
+FROM wishlists w
+LEFT JOIN gifts g ON g.wish_id = w.id
+GROUP BY w.id;
@@ -0,0 +1,9 @@
+-- Полнотекстовый поиск по подаркам: вектор из названия (вес A) и описания (вес B).
+-- Конфигурация russian стеммит русские слова, латиницу обрабатывает английским стеммером.
+-- Добавление хранимой генерируемой колонки перезаписывает таблицу, миграцию нужно выполнять в окно обслуживания.
+ALTER TABLE gifts ADD COLUMN search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('russian', coalesce(name, '')), 'A') ||
+    setweight(to_tsvector('russian', coalesce(description, '')), 'B')
+) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_gifts_search_vector ON gifts USING GIN (search_vector);
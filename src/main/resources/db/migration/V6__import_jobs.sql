@@ -0,0 +1,30 @@
+-- Задания импорта списков желаний. Прогресс фиксируется в той же транзакции, что и записанная порция,
+-- поэтому прерванный импорт продолжается со строки, следующей за last_line.
+CREATE TABLE import_jobs (
+    id                UUID          NOT NULL,
+    user_id           UUID          NOT NULL,
+    format            VARCHAR(16)   NOT NULL,
+    status            VARCHAR(16)   NOT NULL,
+    last_line         BIGINT        NOT NULL DEFAULT 0,
+    current_wish_id   UUID,
+    wishlists_created BIGINT        NOT NULL DEFAULT 0,
+    gifts_created     BIGINT        NOT NULL DEFAULT 0,
+    failed_lines      BIGINT        NOT NULL DEFAULT 0,
+    message           VARCHAR(1000),
+    created_at        TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at        TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_import_jobs PRIMARY KEY (id),
+    CONSTRAINT fk_import_jobs_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+-- Ошибки отдельных строк; выдаются по возрастанию номера строки
+CREATE TABLE import_job_errors (
+    id          UUID          NOT NULL,
+    job_id      UUID          NOT NULL,
+    line_number BIGINT        NOT NULL,
+    message     VARCHAR(1000) NOT NULL,
+    CONSTRAINT pk_import_job_errors PRIMARY KEY (id),
+    CONSTRAINT fk_import_job_errors_job FOREIGN KEY (job_id) REFERENCES import_jobs (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_import_job_errors_job_line ON import_job_errors (job_id, line_number);
@@ -0,0 +1,3 @@
+-- Момент последнего изменения подарков списка. Запись поля через управляемую сущность
+-- увеличивает версию списка и обновляет одну запись кэша второго уровня вместо всего региона.
+ALTER TABLE wishlists ADD COLUMN gifts_changed_at TIMESTAMP WITH TIME ZONE;
@@ -0,0 +1,30 @@
+package com.example.wishlist;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Основа тестов на PostgreSQL в контейнере. Схема создается миграциями Flyway, как в рабочей
+ * базе, и проверяется Hibernate по сущностям (ddl-auto: validate). Без Docker тесты пропускаются.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class PostgresTest {
+
+    /**
+     * Один контейнер на все тестовые классы: контекст Spring кэшируется между классами
+     * и должен указывать на ту же базу
+     */
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        POSTGRES.start();
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.wishlist.benchmark;
+
+import com.example.wishlist.PostgresTest;
+import com.example.wishlist.repository.GiftRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Полнотекстовый поиск подарков на миллионах строк: задержки searchByOwnerId и searchByWishListId
+ * и планы запросов. Объем задается -Dbenchmark.gifts (по умолчанию 2 000 000), число замеров
+ * каждого запроса — -Dbenchmark.iterations.
+ * <pre>
+ * mvn test -Pbenchmark -Dtest=GiftSearchBenchmark
+ * </pre>
+ */
+@Tag("benchmark")
+class GiftSearchBenchmark extends PostgresTest {
+
+    private static final Logger log = LoggerFactory.getLogger(GiftSearchBenchmark.class);
+
+    private static final int GIFTS = Integer.getInteger("benchmark.gifts", 2_000_000);
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 200);
+    private static final int GIFTS_PER_LIST = 50;
+    private static final int LISTS_PER_USER = 4;
+    private static final int PAGE = 51;
+
+    /**
+     * Словарь названий и описаний: 20 существительных и 10 прилагательных. Каждое существительное
+     * встречается в названии каждого двадцатого подарка, прилагательное — каждого десятого.
+     */
+    private static final String WORDS = "array['велосипед','книга','наушники','кружка','рюкзак','часы','фотоаппарат'," +
+            "'плед','лампа','игрушка','конструктор','шарф','перчатки','чайник','кофеварка','колонка','телефон'," +
+            "'планшет','кресло','зонт','красный','синий','большой','маленький','кожаный','деревянный','теплый'," +
+            "'беспроводной','новый','детский']";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private GiftRepository giftRepository;
+
+    @Test
+    void search() throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        int lists = Math.max(1, GIFTS / GIFTS_PER_LIST);
+        int users = Math.max(1, lists / LISTS_PER_USER);
+        String prefix = "bench-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+
+        long start = System.nanoTime();
+        jdbcTemplate.update("insert into users (id, username, email, password) " +
+                "select md5(? || 'u' || u)::uuid, ? || u, ? || u || '@example.com', 'hash' " +
+                "from generate_series(0, ? - 1) u", prefix, prefix, prefix, users);
+        jdbcTemplate.update("insert into wishlists (id, title, user_id) " +
+                "select md5(? || 'l' || l)::uuid, 'Список ' || l, md5(? || 'u' || (l % ?))::uuid " +
+                "from generate_series(0, ? - 1) l", prefix, prefix, users, lists);
+        jdbcTemplate.update("insert into gifts (id, name, description, price, is_reserved, wish_id) " +
+                "select gen_random_uuid(), w[21 + g % 10] || ' ' || w[1 + (g / 10) % 20], " +
+                "'Подарок: ' || w[1 + (g / 7) % 30] || ' и ' || w[1 + (g / 200) % 30], " +
+                "(g % 10000) / 100.0, g % 5 = 0, md5(? || 'l' || (g % ?))::uuid " +
+                "from generate_series(0, ? - 1) g, (select " + WORDS + " as w) v", prefix, lists, GIFTS);
+        jdbcTemplate.execute("analyze users");
+        jdbcTemplate.execute("analyze wishlists");
+        jdbcTemplate.execute("analyze gifts");
+        log.info("Loaded {} gifts in {} lists of {} users in {} s",
+                GIFTS, lists, users, (System.nanoTime() - start) / 1_000_000_000L);
+
+        UUID ownerId = jdbcTemplate.queryForObject("select md5(? || 'u0')::uuid", UUID.class, prefix);
+        UUID wishListId = jdbcTemplate.queryForObject("select md5(? || 'l0')::uuid", UUID.class, prefix);
+
+        // частое слово, пересечение двух слов и короткий префикс, под который попадает почти весь словарь
+        for (String query : List.of("велосипед:*", "красн:* & велосипед:*", "к:*")) {
+            assertThat(giftRepository.searchByOwnerId(ownerId, query, PAGE, 0)).isNotEmpty();
+
+            Latencies byOwner = new Latencies(ITERATIONS);
+            Latencies byWishList = new Latencies(ITERATIONS);
+            for (int i = 0; i < ITERATIONS; i++) {
+                byOwner.measure(() -> giftRepository.searchByOwnerId(ownerId, query, PAGE, 0));
+                byWishList.measure(() -> giftRepository.searchByWishListId(wishListId, query, PAGE, 0));
+            }
+            log.info(byOwner.report("searchByOwnerId '" + query + "'"));
+            log.info(byWishList.report("searchByWishListId '" + query + "'"));
+            log.info("Plan searchByOwnerId '{}':\n{}", query, explain("searchByOwnerId",
+                    new MapSqlParameterSource("ownerId", ownerId).addValue("query", query)));
+        }
+        log.info("Plan searchByWishListId 'велосипед:*':\n{}", explain("searchByWishListId",
+                new MapSqlParameterSource("wishListId", wishListId).addValue("query", "велосипед:*")));
+    }
+
+    /**
+     * План запроса репозитория с фактическим временем выполнения. Текст берется из аннотации
+     * {@link Query}, поэтому план всегда относится к тому же запросу, что и замеры.
+     */
+    private String explain(String method, MapSqlParameterSource parameters) throws NoSuchMethodException {
+        String sql = GiftRepository.class.getMethod(method, UUID.class, String.class, int.class, int.class)
+                .getAnnotation(Query.class).value();
+        parameters.addValue("limit", PAGE).addValue("offset", 0);
+        List<String> plan = new NamedParameterJdbcTemplate(dataSource)
+                .queryForList("explain (analyze, buffers) " + sql, parameters, String.class);
+        return String.join("\n", plan);
+    }
+}
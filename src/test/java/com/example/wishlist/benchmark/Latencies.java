@@ -0,0 +1,50 @@
+package com.example.wishlist.benchmark;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Замеры времени выполнения одной операции в нагрузочном тесте. Замеры можно записывать
+ * из нескольких потоков, отчет строится после их завершения.
+ */
+final class Latencies {
+
+    private final long[] nanos;
+    private final AtomicInteger count = new AtomicInteger();
+
+    Latencies(int capacity) {
+        this.nanos = new long[capacity];
+    }
+
+    /**
+     * Замер одного выполнения
+     * @param operation измеряемая операция
+     */
+    void measure(Runnable operation) {
+        long start = System.nanoTime();
+        operation.run();
+        nanos[count.getAndIncrement()] = System.nanoTime() - start;
+    }
+
+    /**
+     * Перцентили в миллисекундах для отчета
+     * @param name название операции
+     * @return строка вида "name: n=..., p50=..., p95=..., p99=..., max=..."
+     */
+    String report(String name) {
+        long[] sorted = Arrays.copyOf(nanos, count.get());
+        Arrays.sort(sorted);
+        return String.format(Locale.ROOT, "%s: n=%d, p50=%.2fms, p95=%.2fms, p99=%.2fms, max=%.2fms",
+                name, sorted.length, millis(sorted, 0.50), millis(sorted, 0.95), millis(sorted, 0.99), millis(sorted, 1.0));
+    }
+
+    private static double millis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.wishlist.benchmark;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * {@link ThreadLoadBenchmark} с обработкой запросов Tomcat на потоках платформы
+ */
+@TestPropertySource(properties = "spring.threads.virtual.enabled=false")
+class PlatformThreadLoadBenchmark extends ThreadLoadBenchmark {
+}
@@ -0,0 +1,131 @@
+package com.example.wishlist.benchmark;
+
+import com.example.wishlist.PostgresTest;
+import com.example.wishlist.security.JwtTokenProvider;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Нагрузка на HTTP API при обработке запросов на потоках платформы и на виртуальных потоках.
+ * Запросы идут с токенами старого формата, поэтому каждый проходит через кэш пользователей,
+ * половина — через кэш представлений списков, остальные читают сводку из базы.
+ * Наследники различаются только значением spring.threads.virtual.enabled, сравниваются их отчеты:
+ * <pre>
+ * mvn test -Pbenchmark -Dtest='*ThreadLoadBenchmark'
+ * </pre>
+ * Число одновременных клиентов задается -Dbenchmark.concurrency, число запросов — -Dbenchmark.requests.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.jpa.show-sql=false", "security.rate-limit.enabled=false"})
+abstract class ThreadLoadBenchmark extends PostgresTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ThreadLoadBenchmark.class);
+
+    private static final int USERS = 500;
+    private static final int GIFTS_PER_LIST = 20;
+    private static final int CONCURRENCY = Integer.getInteger("benchmark.concurrency", 1000);
+    private static final int REQUESTS = Integer.getInteger("benchmark.requests", 50_000);
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${spring.threads.virtual.enabled}")
+    private boolean virtualThreads;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    @Test
+    void load() throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        List<String> tokens = new ArrayList<>();
+        List<UUID> wishLists = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            UUID userId = UUID.randomUUID();
+            UUID wishListId = UUID.randomUUID();
+            String username = "load-" + userId.toString().substring(0, 13);
+            jdbcTemplate.update("insert into users (id, username, email, password) values (?, ?, ?, 'hash')",
+                    userId, username, username + "@example.com");
+            jdbcTemplate.update("insert into wishlists (id, title, user_id) values (?, 'Load', ?)", wishListId, userId);
+            jdbcTemplate.update("insert into gifts (id, name, price, is_reserved, wish_id) " +
+                    "select gen_random_uuid(), 'Подарок ' || g, g, false, ? from generate_series(1, ?) g",
+                    wishListId, GIFTS_PER_LIST);
+            jdbcTemplate.update("insert into wishlist_stats (wish_id, gift_count, reserved_count, total_price, unreserved_price) " +
+                    "values (?, ?, 0, 0, 0)", wishListId, GIFTS_PER_LIST);
+            // токен без идентификатора и ролей: пользователь загружается через кэш пользователей
+            tokens.add(tokenProvider.generateToken(new UsernamePasswordAuthenticationToken(username, null, List.of())));
+            wishLists.add(wishListId);
+        }
+
+        Latencies latencies = new Latencies(REQUESTS);
+        AtomicInteger failures = new AtomicInteger();
+        Semaphore clients = new Semaphore(CONCURRENCY);
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient http = HttpClient.newBuilder().executor(executor).build()) {
+            for (int i = 0; i < REQUESTS; i++) {
+                clients.acquire();
+                executor.submit(() -> {
+                    try {
+                        latencies.measure(() -> {
+                            if (send(http, tokens, wishLists) != 200) {
+                                failures.incrementAndGet();
+                            }
+                        });
+                    } finally {
+                        clients.release();
+                    }
+                });
+            }
+            clients.acquire(CONCURRENCY);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        String threads = virtualThreads ? "virtual threads" : "platform threads";
+        log.info(latencies.report(threads + ", " + CONCURRENCY + " clients"));
+        log.info("{}: {} requests/s, {} failed", threads, REQUESTS * 1_000_000_000L / elapsed, failures.get());
+        assertThat(failures.get()).isLessThan(REQUESTS);
+    }
+
+    private int send(HttpClient http, List<String> tokens, List<UUID> wishLists) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        UUID wishListId = wishLists.get(random.nextInt(wishLists.size()));
+        String path = random.nextBoolean() ? "/api/wishlists/" + wishListId : "/api/wishlists/" + wishListId + "/summary";
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", "Bearer " + tokens.get(random.nextInt(tokens.size())))
+                .build();
+        try {
+            return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (Exception ex) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.wishlist.benchmark;
+
+import com.example.wishlist.PostgresTest;
+import com.example.wishlist.model.UuidV7Generator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Первичные ключи UUID версии 4 и 7 на PostgreSQL: скорость вставки, размер индекса первичного
+ * ключа и плотность его листовых страниц. Случайные ключи v4 вставляются в произвольные страницы
+ * B-дерева и расщепляют их, ключи v7 дописываются в конец индекса. Число строк задается
+ * -Dbenchmark.rows (по умолчанию 1 000 000).
+ * <pre>
+ * mvn test -Pbenchmark -Dtest=UuidKeyBenchmark
+ * </pre>
+ */
+@Tag("benchmark")
+class UuidKeyBenchmark extends PostgresTest {
+
+    private static final Logger log = LoggerFactory.getLogger(UuidKeyBenchmark.class);
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 1_000_000);
+    private static final int BATCH = 1000;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void insertThroughputAndIndexSize() throws SQLException {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create extension if not exists pgstattuple");
+        List<Map.Entry<String, Supplier<UUID>>> generators = List.of(
+                Map.entry("uuid_v4", UUID::randomUUID),
+                Map.entry("uuid_v7", UuidV7Generator::next));
+        for (Map.Entry<String, Supplier<UUID>> generator : generators) {
+            String table = "benchmark_" + generator.getKey();
+            jdbcTemplate.execute("drop table if exists " + table);
+            jdbcTemplate.execute("create table " + table + " (id uuid primary key, payload varchar(64) not null)");
+            try {
+                long nanos = insert(table, generator.getValue());
+                Map<String, Object> index = jdbcTemplate.queryForMap(
+                        "select pg_relation_size(?::regclass) as size, avg_leaf_density from pgstatindex(?)",
+                        table + "_pkey", table + "_pkey");
+                log.info("{}: {} rows/s, primary key index {} MB, leaf density {}%", generator.getKey(),
+                        ROWS * 1_000_000_000L / nanos, ((Number) index.get("size")).longValue() / (1024 * 1024),
+                        index.get("avg_leaf_density"));
+            } finally {
+                jdbcTemplate.execute("drop table " + table);
+            }
+        }
+    }
+
+    /**
+     * Вставка строк пакетами по {@value #BATCH} в отдельных транзакциях
+     * @return затраченное время в наносекундах
+     */
+    private long insert(String table, Supplier<UUID> ids) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "insert into " + table + " (id, payload) values (?, ?)")) {
+            connection.setAutoCommit(false);
+            long start = System.nanoTime();
+            for (int row = 1; row <= ROWS; row++) {
+                statement.setObject(1, ids.get());
+                statement.setString(2, "payload-" + row);
+                statement.addBatch();
+                if (row % BATCH == 0 || row == ROWS) {
+                    statement.executeBatch();
+                    connection.commit();
+                }
+            }
+            return System.nanoTime() - start;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.wishlist.benchmark;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * {@link ThreadLoadBenchmark} с обработкой запросов Tomcat на виртуальных потоках
+ */
+@TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+class VirtualThreadLoadBenchmark extends ThreadLoadBenchmark {
+}
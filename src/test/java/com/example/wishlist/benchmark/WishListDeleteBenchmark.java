@@ -0,0 +1,95 @@
+package com.example.wishlist.benchmark;
+
+import com.example.wishlist.PostgresTest;
+import com.example.wishlist.model.Gift;
+import com.example.wishlist.service.WishListService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Удаление списка желаний с большим числом подарков: время запроса и сохранность записей
+ * других подарков в кэше второго уровня. Число подарков задается -Dbenchmark.giftsPerList
+ * (по умолчанию 10 000), число удаляемых списков — -Dbenchmark.iterations.
+ * <pre>
+ * mvn test -Pbenchmark -Dtest=WishListDeleteBenchmark
+ * </pre>
+ */
+@Tag("benchmark")
+class WishListDeleteBenchmark extends PostgresTest {
+
+    private static final Logger log = LoggerFactory.getLogger(WishListDeleteBenchmark.class);
+
+    private static final int GIFTS_PER_LIST = Integer.getInteger("benchmark.giftsPerList", 10_000);
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 20);
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private WishListService wishListService;
+
+    @Test
+    void deleteLargeWishList() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        UUID ownerId = UUID.randomUUID();
+        jdbcTemplate.update("insert into users (id, username, email, password) values (?, ?, ?, 'hash')",
+                ownerId, "bench-" + ownerId.toString().substring(0, 8), ownerId + "@example.com");
+        UUID otherGiftId = createWishList(jdbcTemplate, ownerId, 1);
+
+        Latencies latencies = new Latencies(ITERATIONS);
+        int otherGiftCached = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            UUID wishListId = jdbcTemplate.queryForObject(
+                    "select wish_id from gifts where id = ?", UUID.class, createWishList(jdbcTemplate, ownerId, GIFTS_PER_LIST));
+            transaction.execute(status -> entityManager.find(Gift.class, otherGiftId));
+
+            latencies.measure(() -> wishListService.deleteWishList(wishListId, ownerId));
+
+            assertThat(jdbcTemplate.queryForObject(
+                    "select count(*) from gifts where wish_id = ?", Integer.class, wishListId)).isZero();
+            if (entityManagerFactory.getCache().contains(Gift.class, otherGiftId)) {
+                otherGiftCached++;
+            }
+        }
+        log.info(latencies.report("deleteWishList with " + GIFTS_PER_LIST + " gifts"));
+        log.info("Unrelated gift stayed in the second-level cache after {} of {} deletes", otherGiftCached, ITERATIONS);
+    }
+
+    /**
+     * Список желаний с заданным числом подарков
+     * @return идентификатор одного из подарков списка
+     */
+    private static UUID createWishList(JdbcTemplate jdbcTemplate, UUID ownerId, int gifts) {
+        UUID wishListId = UUID.randomUUID();
+        jdbcTemplate.update("insert into wishlists (id, title, user_id) values (?, 'Benchmark', ?)", wishListId, ownerId);
+        jdbcTemplate.update("insert into gifts (id, name, price, is_reserved, wish_id) " +
+                "select gen_random_uuid(), 'Подарок ' || g, g % 1000, false, ? from generate_series(1, ?) g",
+                wishListId, gifts);
+        jdbcTemplate.update("insert into wishlist_stats (wish_id, gift_count, reserved_count, total_price, unreserved_price) " +
+                "select ?, count(*), 0, sum(price), sum(price) from gifts where wish_id = ?", wishListId, wishListId);
+        return jdbcTemplate.queryForObject("select id from gifts where wish_id = ? limit 1", UUID.class, wishListId);
+    }
+}
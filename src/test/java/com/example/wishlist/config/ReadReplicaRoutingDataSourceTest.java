@@ -0,0 +1,167 @@
+package com.example.wishlist.config;
+
+import com.example.wishlist.dto.WishListResponse;
+import com.example.wishlist.model.User;
+import com.example.wishlist.model.WishList;
+import com.example.wishlist.repository.UserRepository;
+import com.example.wishlist.repository.WishListRepository;
+import com.example.wishlist.security.AuthenticatedUser;
+import com.example.wishlist.service.WishListViewCache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Маршрутизация запросов между основной базой и репликой. Оба пула смотрят в одну базу H2,
+ * а при открытии соединения записывают имя пула в переменную сессии @route: так видно,
+ * через какой пул выполнен запрос.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReadReplicaRoutingDataSourceTest.URL,
+        "spring.datasource.hikari.connection-init-sql=SET @route = 'primary'",
+        "spring.datasource.replica.url=" + ReadReplicaRoutingDataSourceTest.URL,
+        "spring.datasource.replica.username=sa",
+        "spring.datasource.replica.password=",
+        "spring.datasource.replica.driver-class-name=org.h2.Driver",
+        "spring.datasource.replica.hikari.connection-init-sql=SET @route = 'replica'"
+})
+@ActiveProfiles("test")
+class ReadReplicaRoutingDataSourceTest {
+
+    static final String URL = "jdbc:h2:mem:routing;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private WishListViewCache wishListViewCache;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WishListRepository wishListRepository;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnlyTransaction;
+    private TransactionTemplate transaction;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionGoesToReplica() {
+        assertThat(routeIn(readOnlyTransaction)).isEqualTo("replica");
+    }
+
+    @Test
+    void writeTransactionAndWorkOutsideTransactionGoToPrimary() {
+        assertThat(routeIn(transaction)).isEqualTo("primary");
+        assertThat(route()).isEqualTo("primary");
+    }
+
+    @Test
+    void userReadsFromPrimaryAfterOwnWrite() {
+        authenticate(UUID.randomUUID());
+        routeIn(transaction);
+        assertThat(routeIn(readOnlyTransaction)).isEqualTo("primary");
+
+        authenticate(UUID.randomUUID());
+        assertThat(routeIn(readOnlyTransaction)).isEqualTo("replica");
+    }
+
+    @Test
+    void onPrimaryKeepsReadOnlyTransactionOnPrimary() {
+        String route = ReadReplicaRoutingDataSource.onPrimary(() -> routeIn(readOnlyTransaction));
+
+        assertThat(route).isEqualTo("primary");
+        assertThat(routeIn(readOnlyTransaction)).isEqualTo("replica");
+    }
+
+    @Test
+    void viewCacheLoadsFromPrimary() {
+        AtomicReference<String> loadedFrom = new AtomicReference<>();
+        wishListViewCache.get(UUID.randomUUID(), id -> {
+            loadedFrom.set(route());
+            return new WishListResponse(id, "title", null, null, List.of(), null, 0);
+        });
+
+        assertThat(loadedFrom.get()).isEqualTo("primary");
+    }
+
+    @Test
+    void replicaReadsDoNotPopulateSecondLevelCache() {
+        UUID id = transaction.execute(status -> createWishList().getId());
+        entityManagerFactory.getCache().evictAll();
+
+        readOnlyTransaction.execute(status -> entityManager.find(WishList.class, id));
+        assertThat(entityManagerFactory.getCache().contains(WishList.class, id)).isFalse();
+
+        ReadReplicaRoutingDataSource.onPrimary(() -> readOnlyTransaction.execute(status -> entityManager.find(WishList.class, id)));
+        assertThat(entityManagerFactory.getCache().contains(WishList.class, id)).isTrue();
+    }
+
+    private String routeIn(TransactionTemplate template) {
+        return template.execute(status -> route());
+    }
+
+    private String route() {
+        return jdbcTemplate.queryForObject("SELECT @route", String.class);
+    }
+
+    private static void authenticate(UUID userId) {
+        AuthenticatedUser user = new AuthenticatedUser(userId, "user-" + userId, null, List.of("ROLE_USER"));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    private WishList createWishList() {
+        String name = "owner-" + UUID.randomUUID();
+        User owner = new User();
+        owner.setUsername(name.substring(0, 20));
+        owner.setEmail(name + "@example.com");
+        owner.setPassword("hash");
+        userRepository.save(owner);
+
+        WishList wishList = new WishList();
+        wishList.setTitle("Routing");
+        wishList.setOwner(owner);
+        return wishListRepository.save(wishList);
+    }
+}
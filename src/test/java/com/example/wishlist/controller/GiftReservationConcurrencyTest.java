@@ -0,0 +1,118 @@
+package com.example.wishlist.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Одновременное резервирование одного подарка: условный UPDATE должен пропустить ровно
+ * один запрос, остальные получают 409.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class GiftReservationConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void onlyOneConcurrentReservationSucceeds() throws Exception {
+        String owner = register();
+        UUID wishListId = id(postJson("/api/wishlists", owner, Map.of("title", "Concurrency")));
+        UUID giftId = id(postJson("/api/gifts/wishlist/" + wishListId, owner, Map.of("name", "Gift")));
+        String guest = register();
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Integer>> statuses = new ArrayList<>();
+        try {
+            Callable<Integer> reserve = () -> {
+                start.await();
+                return mockMvc.perform(post("/api/gifts/" + giftId + "/reserve")
+                                .header(HttpHeaders.AUTHORIZATION, "Bearer " + guest))
+                        .andReturn().getResponse().getStatus();
+            };
+            for (int i = 0; i < THREADS; i++) {
+                statuses.add(executor.submit(reserve));
+            }
+            start.countDown();
+
+            List<Integer> results = new ArrayList<>();
+            for (Future<Integer> status : statuses) {
+                results.add(status.get(30, TimeUnit.SECONDS));
+            }
+            assertThat(results).filteredOn(status -> status == 204).hasSize(1);
+            assertThat(results).filteredOn(status -> status == 409).hasSize(THREADS - 1);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        JsonNode summary = json(mockMvc.perform(get("/api/wishlists/" + wishListId + "/summary")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + owner)).andReturn().getResponse().getContentAsString());
+        assertThat(summary.get("reservedCount").asInt()).isEqualTo(1);
+    }
+
+    /**
+     * Регистрация и вход нового пользователя
+     * @return JWT токен
+     */
+    private String register() throws Exception {
+        String username = "user" + UUID.randomUUID().toString().substring(0, 8);
+        Map<String, String> credentials = Map.of(
+                "username", username,
+                "email", username + "@example.com",
+                "password", "password");
+        mockMvc.perform(post("/api/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(credentials)));
+        String login = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(credentials)))
+                .andReturn().getResponse().getContentAsString();
+        return json(login).get("token").asText();
+    }
+
+    private String postJson(String path, String token, Object body) throws Exception {
+        return mockMvc.perform(post(path)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(body)))
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private UUID id(String response) throws Exception {
+        return UUID.fromString(json(response).get("id").asText());
+    }
+
+    private JsonNode json(String content) throws Exception {
+        return objectMapper.readTree(content);
+    }
+}
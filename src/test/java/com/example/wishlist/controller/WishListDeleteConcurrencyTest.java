@@ -0,0 +1,123 @@
+package com.example.wishlist.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Одновременное удаление одного списка желаний: список удаляется ровно один раз,
+ * остальные запросы получают 404, а его подарки удаляются вместе с ним.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class WishListDeleteConcurrencyTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void onlyOneConcurrentDeleteSucceeds() throws Exception {
+        String owner = register();
+        UUID wishListId = id(postJson("/api/wishlists", owner, Map.of("title", "Concurrency")));
+        UUID giftId = id(postJson("/api/gifts/wishlist/" + wishListId, owner, Map.of("name", "Gift")));
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Integer>> statuses = new ArrayList<>();
+        try {
+            Callable<Integer> deleteList = () -> {
+                start.await();
+                return mockMvc.perform(delete("/api/wishlists/" + wishListId)
+                                .header(HttpHeaders.AUTHORIZATION, "Bearer " + owner))
+                        .andReturn().getResponse().getStatus();
+            };
+            for (int i = 0; i < THREADS; i++) {
+                statuses.add(executor.submit(deleteList));
+            }
+            start.countDown();
+
+            List<Integer> results = new ArrayList<>();
+            for (Future<Integer> status : statuses) {
+                results.add(status.get(30, TimeUnit.SECONDS));
+            }
+            assertThat(results).filteredOn(status -> status == 200).hasSize(1);
+            assertThat(results).filteredOn(status -> status == 404).hasSize(THREADS - 1);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(status(get("/api/wishlists/" + wishListId), owner)).isEqualTo(404);
+        assertThat(status(get("/api/gifts/" + giftId), owner)).isEqualTo(404);
+    }
+
+    /**
+     * Регистрация и вход нового пользователя
+     * @return JWT токен
+     */
+    private String register() throws Exception {
+        String username = "user" + UUID.randomUUID().toString().substring(0, 8);
+        Map<String, String> credentials = Map.of(
+                "username", username,
+                "email", username + "@example.com",
+                "password", "password");
+        mockMvc.perform(post("/api/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(credentials)));
+        String login = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(credentials)))
+                .andReturn().getResponse().getContentAsString();
+        return json(login).get("token").asText();
+    }
+
+    private String postJson(String path, String token, Object body) throws Exception {
+        return mockMvc.perform(post(path)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(body)))
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private int status(MockHttpServletRequestBuilder request, String token) throws Exception {
+        return mockMvc.perform(request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andReturn().getResponse().getStatus();
+    }
+
+    private UUID id(String response) throws Exception {
+        return UUID.fromString(json(response).get("id").asText());
+    }
+
+    private JsonNode json(String content) throws Exception {
+        return objectMapper.readTree(content);
+    }
+}
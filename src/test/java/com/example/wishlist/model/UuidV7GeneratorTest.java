@@ -0,0 +1,86 @@
+package com.example.wishlist.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Формат и порядок идентификаторов UUID версии 7. Порядок проверяется по строковому
+ * представлению: оно совпадает с побайтовым сравнением uuid в PostgreSQL.
+ */
+class UuidV7GeneratorTest {
+
+    private static final Comparator<UUID> BYTE_ORDER = Comparator.comparing(UUID::toString);
+
+    @Test
+    void generatesVersion7WithCurrentTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID id = UuidV7Generator.next();
+        long after = System.currentTimeMillis();
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        // переполнение счетчика может сдвинуть время вперед не более чем на несколько миллисекунд
+        assertThat(timestamp(id)).isBetween(before, after + 10);
+    }
+
+    @Test
+    void idsAreStrictlyIncreasingWithinOneMillisecond() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(UuidV7Generator.next());
+        }
+
+        boolean sameMillisecond = false;
+        for (int i = 1; i < ids.size(); i++) {
+            assertThat(BYTE_ORDER.compare(ids.get(i - 1), ids.get(i))).isNegative();
+            sameMillisecond |= timestamp(ids.get(i - 1)) == timestamp(ids.get(i));
+        }
+        assertThat(sameMillisecond).isTrue();
+    }
+
+    @Test
+    void concurrentIdsAreUniqueAndOrderedPerThread() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Callable<List<UUID>> generate = () -> {
+                List<UUID> ids = new ArrayList<>();
+                for (int i = 0; i < 10_000; i++) {
+                    ids.add(UuidV7Generator.next());
+                }
+                return ids;
+            };
+            List<Future<List<UUID>>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(generate));
+            }
+
+            Set<UUID> all = new HashSet<>();
+            for (Future<List<UUID>> future : futures) {
+                List<UUID> ids = future.get(30, TimeUnit.SECONDS);
+                assertThat(ids).isSortedAccordingTo(BYTE_ORDER);
+                all.addAll(ids);
+            }
+            assertThat(all).hasSize(threads * 10_000);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static long timestamp(UUID id) {
+        return id.getMostSignificantBits() >>> 16;
+    }
+}
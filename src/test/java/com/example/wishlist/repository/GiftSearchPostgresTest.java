@@ -0,0 +1,129 @@
+package com.example.wishlist.repository;
+
+import com.example.wishlist.PostgresTest;
+import com.example.wishlist.model.Gift;
+import com.example.wishlist.model.User;
+import com.example.wishlist.model.WishList;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Полнотекстовый поиск подарков на PostgreSQL: колонка search_vector и GIN индекс из миграции V5,
+ * русский стеммер и ранжирование названия выше описания.
+ */
+class GiftSearchPostgresTest extends PostgresTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WishListRepository wishListRepository;
+
+    @Autowired
+    private GiftRepository giftRepository;
+
+    private TransactionTemplate transaction;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void migrationsCreateSearchVectorAndIndex() {
+        assertThat(flyway.info().pending()).isEmpty();
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from pg_indexes where tablename = 'gifts' and indexname = 'idx_gifts_search_vector'",
+                Integer.class)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject(
+                "select is_generated from information_schema.columns " +
+                "where table_name = 'gifts' and column_name = 'search_vector'",
+                String.class)).isEqualTo("ALWAYS");
+    }
+
+    @Test
+    void searchByOwnerIdRanksNameAboveDescriptionAndSkipsOtherOwners() {
+        WishList wishList = transaction.execute(status -> createWishList());
+        UUID inDescription = transaction.execute(status -> createGift(wishList, "Шлем", "Для езды на велосипеде"));
+        UUID inName = transaction.execute(status -> createGift(wishList, "Горный велосипед", null));
+        transaction.execute(status -> createGift(wishList, "Книга", "Роман"));
+        WishList foreign = transaction.execute(status -> createWishList());
+        transaction.execute(status -> createGift(foreign, "Велосипед", null));
+
+        UUID ownerId = wishList.getOwner().getId();
+        assertThat(ids(giftRepository.searchByOwnerId(ownerId, "велосипеды:*", 10, 0)))
+                .containsExactly(inName, inDescription);
+        assertThat(ids(giftRepository.searchByOwnerId(ownerId, "велосипеды:*", 1, 1)))
+                .containsExactly(inDescription);
+        assertThat(ids(giftRepository.searchByOwnerId(ownerId, "горн:* & велосипед:*", 10, 0)))
+                .containsExactly(inName);
+    }
+
+    @Test
+    void searchByWishListIdReturnsMappedGiftsOfThatList() {
+        WishList wishList = transaction.execute(status -> createWishList());
+        UUID gift = transaction.execute(status -> createGift(wishList, "Роман в двух томах", "Книга"));
+        WishList other = transaction.execute(status -> createWishList());
+        transaction.execute(status -> createGift(other, "Роман", null));
+
+        List<GiftSearchView> found = giftRepository.searchByWishListId(wishList.getId(), "книг:*", 10, 0);
+
+        assertThat(found).hasSize(1);
+        GiftSearchView view = found.get(0);
+        assertThat(view.getId()).isEqualTo(gift);
+        assertThat(view.getName()).isEqualTo("Роман в двух томах");
+        assertThat(view.getDescription()).isEqualTo("Книга");
+        assertThat(view.isReserved()).isFalse();
+        assertThat(view.getWishListId()).isEqualTo(wishList.getId());
+        assertThat(view.getVersion()).isZero();
+        assertThat(giftRepository.searchByWishListId(wishList.getId(), "велосипед:*", 10, 0)).isEmpty();
+    }
+
+    private WishList createWishList() {
+        String name = "owner-" + UUID.randomUUID();
+        User owner = new User();
+        owner.setUsername(name.substring(0, 20));
+        owner.setEmail(name + "@example.com");
+        owner.setPassword("hash");
+        userRepository.save(owner);
+
+        WishList wishList = new WishList();
+        wishList.setTitle("Search");
+        wishList.setOwner(owner);
+        return wishListRepository.save(wishList);
+    }
+
+    private UUID createGift(WishList wishList, String name, String description) {
+        Gift gift = new Gift();
+        gift.setName(name);
+        gift.setDescription(description);
+        gift.setWishList(wishList);
+        return giftRepository.save(gift).getId();
+    }
+
+    private static List<UUID> ids(List<GiftSearchView> found) {
+        return found.stream().map(GiftSearchView::getId).toList();
+    }
+}